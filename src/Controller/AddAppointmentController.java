@@ -20,6 +20,7 @@ import java.sql.*;
 import java.time.*;
 import utils.Time;
 import utils.DBConnect;
+import utils.Query;
 
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -39,7 +40,7 @@ public class AddAppointmentController implements Initializable {
      * Appointment creation form label
      */
     @FXML
-    private Label appointmentTitle, contactLabel, typeLabel, startLabel, endLabel, userLabel, customerIdLabel, appointmentIdLabel, titleLabel, descriptionLabel, locationLabel, countryLabel;
+    private Label appointmentTitle, contactLabel, typeLabel, startLabel, endLabel, userLabel, customerIdLabel, appointmentIdLabel, titleLabel, descriptionLabel, locationLabel, countryLabel, durationLabel, slotLabel;
     /**
      * Text input field to add new appointment information
      */
@@ -54,24 +55,24 @@ public class AddAppointmentController implements Initializable {
      * Button for appointment form
      */
     @FXML
-    private Button createNewAppointmentButton, cancelButton;
+    private Button createNewAppointmentButton, cancelButton, findSlotsButton;
     /**
      * Dropdown input field to add new appointment information
      */
     @FXML
-    private ComboBox<String> contactBoxField, customerBoxField, userBoxField, startHour, startMin, endHour, endMin;
+    private ComboBox<String> contactBoxField, customerBoxField, userBoxField, startHour, startMin, endHour, endMin, durationBox, slotBox;
     /**
-     * List of available customers
+     * Number of free times offered at once
      */
-    private List<String> customers = new ArrayList<>();
+    private static final int SLOT_COUNT = 10;
     /**
-     * List of available contacts
+     * Days ahead searched for free times
      */
-    private List<String> contacts = new ArrayList<>();
+    private static final int SLOT_SEARCH_DAYS = 14;
     /**
-     * List of available users
+     * Start times listed in the available times dropdown, in the same order
      */
-    private List<String> users = new ArrayList<>();
+    private final List<LocalDateTime> foundSlots = new ArrayList<>();
 
     public AddAppointmentController(DataStore ds) {
         this.ds = ds;
@@ -108,6 +109,9 @@ public class AddAppointmentController implements Initializable {
         startLabel.setText(rb.getString("start_time"));
         endLabel.setText(rb.getString("end_time"));
         customerIdLabel.setText(rb.getString("customer_id"));
+        durationLabel.setText(rb.getString("duration"));
+        slotLabel.setText(rb.getString("available_times"));
+        findSlotsButton.setText(rb.getString("find_slots"));
         createNewAppointmentButton.setText(rb.getString("save"));
         cancelButton.setText(rb.getString("cancel"));
     }
@@ -115,37 +119,11 @@ public class AddAppointmentController implements Initializable {
      * Load dropdowns with available contact/customer/user options
      */
     private void loadComboBoxes() {
-        //clear all dropdowns
-        this.contactBoxField.getItems().clear();
-        this.contacts.clear();
-        this.customerBoxField.getItems().clear();
-        this.customers.clear();
-        this.userBoxField.getItems().clear();
-        this.users.clear();
-        //load contact and customer dropdowns from datastore
-        for (int i = 0; i < ds.getAllContacts().size(); i++) {
-            String contact = ds.getAllContacts().get(i).getName();
-            contactBoxField.getItems().add(contact);
-            this.contacts.add(i, contact);
-        }
-        for (int i = 0; i < ds.getAllCustomers().size(); i++) {
-            String customer = ds.getAllCustomers().get(i).getCustomerName();
-            this.customerBoxField.getItems().add(customer);
-            this.customers.add(customer);
-        }
-        try {
-            //load user dropdown from db
-            Statement st3 = DBConnect.getConn().createStatement();
-            String rq3 = "SELECT * FROM users";
-            ResultSet rs3 = st3.executeQuery(rq3);
-            while (rs3.next()) {
-                String user = rs3.getString("User_Name");
-                this.userBoxField.getItems().add(user);
-                this.users.add(user);
-            }
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        //load contact, customer, and user dropdowns from cached reference data
+        ReferenceData referenceData = ds.getReferenceData();
+        contactBoxField.setItems(referenceData.getContactNames());
+        customerBoxField.setItems(referenceData.getCustomerNames());
+        userBoxField.setItems(referenceData.getUserNames());
     }
     /**
      * Load time dropdown with available hour/minute options
@@ -183,6 +161,69 @@ public class AddAppointmentController implements Initializable {
         startMin.setItems(startMinutes);
         endHour.setItems(endHours);
         endMin.setItems(endMinutes);
+        durationBox.setItems(FXCollections.observableArrayList("15", "30", "45", "60", "90", "120"));
+        durationBox.setValue("30");
+    }
+    /**
+     * Lists the earliest times the selected contact, customer, and user are all free,
+     * searching from the selected start date or now, whichever is later
+     * @param event Button click event
+     */
+    @FXML
+    private void findSlotsAction(ActionEvent event) {
+        int contactId = ds.getContactId(contactBoxField.getSelectionModel().getSelectedItem());
+        int customerId = ds.getCustomerId(customerBoxField.getSelectionModel().getSelectedItem());
+        int userId = ds.getUserId(userBoxField.getSelectionModel().getSelectedItem());
+        if (contactId == 0 || customerId == 0 || userId == 0 || durationBox.getValue() == null) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle(rb.getString("error"));
+            alert.setHeaderText(rb.getString("select_slot_resources"));
+            alert.showAndWait();
+            return;
+        }
+        LocalDateTime from = LocalDateTime.now();
+        if (startTimeField.getValue() != null && startTimeField.getValue().atStartOfDay().isAfter(from)) {
+            from = startTimeField.getValue().atStartOfDay();
+        }
+        Duration duration = Duration.ofMinutes(Integer.parseInt(durationBox.getValue()));
+        List<LocalDateTime> slots = ds.getSlotFinder().findSlots(customerId, contactId, userId, duration, from, from.plusDays(SLOT_SEARCH_DAYS), SLOT_COUNT);
+        // list slots in dropdown, remembering their times for when one is picked
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        ObservableList<String> slotNames = FXCollections.observableArrayList();
+        for (LocalDateTime slot : slots) {
+            slotNames.add(slot.format(formatter));
+        }
+        foundSlots.clear();
+        foundSlots.addAll(slots);
+        slotBox.setItems(slotNames);
+        if (slots.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(rb.getString("available_times"));
+            alert.setHeaderText(rb.getString("no_slots"));
+            alert.showAndWait();
+        } else {
+            slotBox.show();
+        }
+    }
+    /**
+     * Fills start and end date/time fields from the picked free time
+     * @param event Dropdown selection event
+     */
+    @FXML
+    private void slotSelectedAction(ActionEvent event) {
+        int index = slotBox.getSelectionModel().getSelectedIndex();
+        if (index < 0 || index >= foundSlots.size()) {
+            return;
+        }
+        LocalDateTime start = foundSlots.get(index);
+        LocalDateTime end = start.plusMinutes(Integer.parseInt(durationBox.getValue()));
+        startTimeField.setValue(start.toLocalDate());
+        startHour.setValue(String.format("%02d", start.getHour()));
+        startMin.setValue(String.format("%02d", start.getMinute()));
+        endTimeField.setValue(end.toLocalDate());
+        // end hour resets the end minute choices, so set it first
+        endHour.setValue(String.format("%02d", end.getHour()));
+        endMin.setValue(String.format("%02d", end.getMinute()));
     }
     @FXML
     private void updateDropdown(ActionEvent event) {
@@ -211,16 +252,21 @@ public class AddAppointmentController implements Initializable {
         startMin.setItems(startMinutes);
     }
     /**
-     * Validates selected appointment time is within business hours and does not conflict with existing customer appointment.
+     * Validates selected appointment time is within business hours and does not overlap existing appointments
+     * of the same customer, contact, or user.
      * Throws appropriate error alert if hours conflict.
      * @param utcStart Selected meeting start time in Timestamp format
      * @param utcEnd Selected meeting end time in Timestamp format
+     * @param localStart Selected meeting start time in local time
+     * @param localEnd Selected meeting end time in local time
      * @param customerId Selected customer
+     * @param contactId Selected contact
+     * @param userId Selected user
      * @param appointmentId Selected appointment being validated
-     * @throws SQLException Fails to fetch customer appointment information from database
      * @return Boolean if selected appointment hours are valid or not
      */
-    private boolean validateAppointment(Timestamp utcStart, Timestamp utcEnd, int customerId, int appointmentId) throws SQLException {
+    private boolean validateAppointment(Timestamp utcStart, Timestamp utcEnd, Timestamp localStart, Timestamp localEnd,
+                                        int customerId, int contactId, int userId, int appointmentId) {
         ZonedDateTime UtcStart = ZonedDateTime.of(utcStart.toLocalDateTime(), ZoneId.of("UTC"));
         ZonedDateTime EstStart = UtcStart.withZoneSameInstant(ZoneId.of("America/New_York"));
         ZonedDateTime UtcEnd = ZonedDateTime.of(utcEnd.toLocalDateTime(), ZoneId.of("UTC"));
@@ -235,24 +281,16 @@ public class AddAppointmentController implements Initializable {
             return false;
         }
 
-        // Check that proposed meeting hours do not conflict with customer's existing appointments
-        String sq1 = "SELECT * FROM appointments WHERE Customer_ID = '"+customerId+"' AND Appointment_ID != '"+appointmentId+"';";
-        Statement st1 = DBConnect.getConn().createStatement();
-        ResultSet qrs1 = st1.executeQuery(sq1);
-        String start = "";
-        String end = "";
-        while (qrs1.next()) {
-            start = qrs1.getString("Start");
-            end = qrs1.getString("End");
-            ZonedDateTime UTCCustomerStart = ZonedDateTime.of(Timestamp.valueOf(start).toLocalDateTime(), ZoneId.of("UTC"));
-            ZonedDateTime UTCCustomerEnd = ZonedDateTime.of(Timestamp.valueOf(end).toLocalDateTime(), ZoneId.of("UTC"));
-            if ( UtcStart.compareTo(UTCCustomerStart) < 1 && UtcEnd.compareTo(UTCCustomerEnd)  < 1) {
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle(rb.getString("schedule_conflict"));
-                alert.setHeaderText(rb.getString("customer_schedule_conflict"));
-                alert.showAndWait();
-                return false;
-            }
+        // Check that proposed meeting hours do not overlap the customer's, contact's, or user's other appointments
+        Map<ConflictEngine.Resource, List<Integer>> conflicts = ds.getConflictEngine().findConflicts(customerId, contactId, userId, localStart, localEnd, appointmentId);
+        if (!conflicts.isEmpty()) {
+            ConflictEngine.Resource resource = conflicts.keySet().iterator().next();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle(rb.getString("schedule_conflict"));
+            alert.setHeaderText(rb.getString(resource.name().toLowerCase(Locale.ROOT) + "_schedule_conflict"));
+            alert.setContentText(rb.getString("conflicting_appointments") + " " + conflicts.get(resource));
+            alert.showAndWait();
+            return false;
         }
         return true;
     }
@@ -260,7 +298,7 @@ public class AddAppointmentController implements Initializable {
      * Adds new appointment
      * @param event Button click event
      * @throws IOException Fails to load appointment management screen
-     * @throws SQLException Fails to fetch contact/user/customer information from database
+     * @throws SQLException Fails to add appointment to database
      */
     @FXML
     private void createNewAppointmentAction(ActionEvent event) throws IOException, SQLException {
@@ -289,55 +327,19 @@ public class AddAppointmentController implements Initializable {
         String last_updated_by = ds.getUser();
         String customerIdFieldText = customerBoxField.getSelectionModel().getSelectedItem();
         String userBoxFieldText = userBoxField.getSelectionModel().getSelectedItem();
-        String sq1 = "SELECT * FROM contacts WHERE Contact_Name = '"+contactFieldText+"';";
-        Statement st1 = DBConnect.getConn().createStatement();
-        ResultSet qrs1 = st1.executeQuery(sq1);
-        int contactId = 0;
-        while (qrs1.next()) {
-            contactId = qrs1.getInt("Contact_ID");
-        }
-        String sq2 = "SELECT * FROM customers WHERE Customer_Name = '"+customerIdFieldText+"';";
-        st1 = DBConnect.getConn().createStatement();
-        ResultSet qrs2 = st1.executeQuery(sq2);
-        int customerId = 0;
-        while (qrs2.next()) {
-            customerId = qrs2.getInt("Customer_ID");
-        }
-        String sq3 = "SELECT * FROM users WHERE User_Name = '"+userBoxFieldText+"';";
-        st1 = DBConnect.getConn().createStatement();
-        ResultSet qrs3 = st1.executeQuery(sq3);
-        int userId = 0;
-        while (qrs3.next()) {
-            userId = qrs3.getInt("User_ID");
-        }
-        if (validateAppointment(utcStartTime, utcEndTime, customerId, newId)) {
-            System.out.println("Connection is successful !!!!! Adding appointment...");
-            String rq2 = "INSERT INTO appointments VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
-            PreparedStatement myInsert = DBConnect.getConn().prepareStatement(rq2);
-            myInsert.setInt(1, newId);
-            myInsert.setString(2, titleFieldText);
-            myInsert.setString(3, descriptionFieldText);
-            myInsert.setString(4, locationFieldText);
-            myInsert.setString(5, typeFieldText);
-            myInsert.setTimestamp(6, localStartTimestamp);
-            myInsert.setTimestamp(7, localEndTimestamp);
-            myInsert.setTimestamp(8, current_date);
-            myInsert.setString(9, created_by);
-            myInsert.setTimestamp(10, current_date);
-            myInsert.setString(11, last_updated_by);
-            myInsert.setInt(12, customerId);
-            myInsert.setInt(13, 1);
-            myInsert.setInt(14, contactId);
-            try (var ps = myInsert) {
-                ps.executeUpdate();
-                System.out.println("Appointment added...");
-            }
+        // resolve selected names to IDs from local lookups
+        int contactId = ds.getContactId(contactFieldText);
+        int customerId = ds.getCustomerId(customerIdFieldText);
+        int userId = ds.getUserId(userBoxFieldText);
+        if (validateAppointment(utcStartTime, utcEndTime, localStartTimestamp, localEndTimestamp, customerId, contactId, userId, newId)) {
             Appointment c1 = new Appointment(newId, titleFieldText, descriptionFieldText, locationFieldText, typeFieldText, contactId, utcStartTime, utcEndTime, current_date, "created_by", current_date, "last_updated_by", customerId, userId);
             c1.setLocalStart(localStartTimestamp);
             c1.setLocalEnd(localEndTimestamp);
-            c1.setFormattedLocalStart(localStartTimestamp);
-            c1.setFormattedLocalStart(localEndTimestamp);
             ds.addAppointment(c1);
+            // save to database in the background, removing the appointment again if it cannot be saved
+            DBConnect.getWriteQueue().insert("appointments", newId, rb.getString("appointment") + " " + newId,
+                    () -> ds.getAllAppointments().remove(c1), Query.INSERT_APPOINTMENT, newId, titleFieldText, descriptionFieldText, locationFieldText, typeFieldText,
+                    localStartTimestamp, localEndTimestamp, current_date, created_by, current_date, last_updated_by, customerId, userId, contactId);
             valid = true;
         }
         if (valid) {
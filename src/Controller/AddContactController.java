@@ -12,6 +12,7 @@ import javafx.event.ActionEvent;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.io.IOException;
 import java.net.URL;
@@ -80,27 +81,19 @@ public class AddContactController implements Initializable {
      * Adds new contact
      * @param event Button click event
      * @throws IOException Fails to load contact management screen
-     * @throws SQLException Fails to add contact to database
      */
     @FXML
-    private void createNewContactButtonAction(ActionEvent event) throws IOException, SQLException {
+    private void createNewContactButtonAction(ActionEvent event) throws IOException {
         boolean valid = false;
         int contactId = ds.getAllContacts().get(ds.getAllContacts().size() - 1).getId()+1;
         String contactNameFieldText = contactNameField.getText();
         String emailFieldText = contactEmailField.getText();
-        // prepare contact insertion statement with user inputted variables
-        String rq2 = "INSERT INTO contacts VALUES(?,?,?)";
-        PreparedStatement myInsert = DBConnect.getConn().prepareStatement(rq2);
-        myInsert.setInt(1,contactId);
-        myInsert.setString(2,contactNameFieldText);
-        myInsert.setString(3,emailFieldText);
-        try (var ps = myInsert) {
-            ps.executeUpdate();
-            // add contact to local data store if input is valid
-            valid = true;
-            Contact c1 = new Contact(contactId, contactNameFieldText, emailFieldText);
-            ds.addContact(c1);
-        }
+        // add contact to local data store, then save to database in the background
+        Contact c1 = new Contact(contactId, contactNameFieldText, emailFieldText);
+        ds.addContact(c1);
+        DBConnect.getWriteQueue().insert("contacts", contactId, rb.getString("contact") + " " + contactNameFieldText,
+                () -> ds.getAllContacts().remove(c1), Query.INSERT_CONTACT, contactId, contactNameFieldText, emailFieldText);
+        valid = true;
 
         if (valid) {
             Stage stage = (Stage) ((Node)event.getSource()).getScene().getWindow();
@@ -12,6 +12,7 @@ import javafx.event.ActionEvent;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.io.IOException;
 import java.net.URL;
@@ -50,14 +51,6 @@ public class AddCustomerController implements Initializable {
      */
     @FXML
     private Button createNewCustomerAction, cancelButton;
-    /**
-     * List of available countries
-     */
-    private List<String> countries = new ArrayList<>();
-    /**
-     * List of available divisions
-     */
-    private List<String> divisions = new ArrayList<>();
 
     /**
      * Controller for new customer screen
@@ -101,49 +94,15 @@ public class AddCustomerController implements Initializable {
      */
     @FXML
     private void loadComboBoxes() {
-        this.countryBoxField.getItems().clear();
-        this.countries.clear();
-        String rq1 = "SELECT Country FROM countries";
-        String rq2 = "SELECT Division FROM first_level_divisions d";
-        try {
-            Statement st1 = DBConnect.getConn().createStatement();
-            Statement st2 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(rq1);
-            ResultSet rs2 = st2.executeQuery(rq2);
-            while (rs1.next()) {
-                String country = rs1.getString("Country");
-                this.countryBoxField.getItems().add(country);
-                this.countries.add(country);
-            }
-            while (rs2.next()) {
-                String division = rs2.getString("Division");
-                this.divisionBoxField.getItems().add(division);
-                this.divisions.add(division);
-            }
-
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        Geography geography = ds.getGeography();
+        this.countryBoxField.setItems(geography.getCountries());
+        this.divisionBoxField.setItems(geography.getDivisions());
     }
 
     @FXML
     private void updateDropdown(ActionEvent event) {
         String selectedCountry = countryBoxField.getValue();
-        String sql = "SELECT d.Division_ID, d.Division, d.COUNTRY_ID, c.Country_ID, c.Country FROM first_level_divisions d JOIN countries c ON (d.COUNTRY_ID = c.Country_ID) WHERE c.Country = '"+selectedCountry+"';";
-        try {
-            PreparedStatement myInsert = DBConnect.getConn().prepareStatement(sql);
-            Statement st1 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(sql);
-            this.divisionBoxField.getItems().removeAll(this.divisions);
-            this.divisions.clear();
-            while (rs1.next()) {
-                String division = rs1.getString("Division");
-                this.divisionBoxField.getItems().add(division);
-                this.divisions.add(division);
-            }
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        this.divisionBoxField.setItems(ds.getGeography().getDivisions(selectedCountry));
     }
     /**
      * Adds new customer
@@ -165,33 +124,12 @@ public class AddCustomerController implements Initializable {
         String divisionText = divisionBoxField.getSelectionModel().getSelectedItem();
         String countryText = countryBoxField.getSelectionModel().getSelectedItem();
         Customer c1 = new Customer(newId, customerNameText, addressText, postalCodeText, phoneText, current_date, created_by, current_time, last_updated_by, divisionText, countryText);
-        try {
-            String rq1 = "SELECT * FROM first_level_divisions WHERE Division = '"+divisionText+"';";
-            Statement st1 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(rq1);
-            int divisionId = 0;
-            while (rs1.next()) {
-                divisionId = rs1.getInt("Division_ID");
-            }
-            String rq2 = "INSERT INTO customers VALUES(?,?,?,?,?,?,?,?,?,?)";
-            PreparedStatement myInsert = DBConnect.getConn().prepareStatement(rq2);
-            myInsert.setInt(1,newId);
-            myInsert.setString(2,customerNameText);
-            myInsert.setString(3,addressText);
-            myInsert.setString(4,postalCodeText);
-            myInsert.setString(5,phoneText);
-            myInsert.setDate(6, current_date);
-            myInsert.setString(7,created_by);
-            myInsert.setTimestamp(8, current_time);
-            myInsert.setString(9, last_updated_by);
-            myInsert.setInt(10, divisionId);
-            try (var ps = myInsert) {
-                ps.executeUpdate();
-            }
-            ds.addCustomer(c1);
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        int divisionId = ds.getGeography().getDivisionId(divisionText);
+        ds.addCustomer(c1);
+        // save to database in the background, removing the customer again if it cannot be saved
+        DBConnect.getWriteQueue().insert("customers", newId, rb.getString("customer") + " " + customerNameText,
+                () -> ds.getAllCustomers().remove(c1), Query.INSERT_CUSTOMER, newId, customerNameText, addressText, postalCodeText, phoneText,
+                current_date, created_by, current_time, last_updated_by, divisionId);
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(rb.getString("error"));
         alert.setHeaderText(rb.getString("error"));
@@ -2,9 +2,8 @@ package Controller;
 
 import Model.DataStore;
 import Model.Appointment;
+import Model.AppointmentRange;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,6 +14,7 @@ import javafx.scene.control.*;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.time.LocalDateTime;
 import java.io.IOException;
@@ -35,6 +35,10 @@ public class AppointmentController implements Initializable {
      * Stores local user session data and appointment information from database
      */
     private final DataStore ds;
+    /**
+     * Week or month range shown in table, kept here so it stays live while shown
+     */
+    private AppointmentRange shownRange;
     /**
      * Title for appointment screen
      */
@@ -87,8 +91,18 @@ public class AppointmentController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         loadLabels();
-        //set data in table
-        appointmentTableView.setItems(ds.getAllAppointments());
+        //set data in table, drawing rows from the column store
+        appointmentTableView.setItems(ds.getAppointmentColumns().getViews());
+        appointmentTableView.setSortPolicy(table -> {
+            if (table.getItems() != ds.getAppointmentColumns().getViews()) {
+                return TableView.DEFAULT_SORT_POLICY.call(table);
+            }
+            // views are read-only, so sort the stored appointments and the views follow
+            if (table.getComparator() != null) {
+                FXCollections.sort(ds.getAllAppointments(), table.getComparator());
+            }
+            return true;
+        });
         //set all appointments radio button as default in toggle group
         RadioButtonToggleGroup = new ToggleGroup();
         allAppointmentsRadioButton.setToggleGroup(RadioButtonToggleGroup);
@@ -131,7 +145,8 @@ public class AppointmentController implements Initializable {
     @FXML
     private void AllAppointmentsRadioButton(ActionEvent event) {
         //reset table filter to show all appointments
-        appointmentTableView.setItems(ds.getAllAppointments());
+        shownRange = null;
+        appointmentTableView.setItems(ds.getAppointmentColumns().getViews());
     }
 
     /**
@@ -140,19 +155,10 @@ public class AppointmentController implements Initializable {
      */
     @FXML
     private void AppointmentWeekRadioButtonHandler(ActionEvent event) {
-        //set table filter to show appointments within the current week
+        //set table to show appointments within the current week, read from the start time index
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nowPlus1Week = now.plusWeeks(1);
-        FilteredList<Appointment> filteredData = new FilteredList<>(ds.getAllAppointments());
-        /**
-         * Lambda filter on appointments to reduce code and allow for higher efficiency
-         * in sorting through the appointment collection by allowing sequential/parallel processing
-         */
-        filteredData.setPredicate(row -> {
-            LocalDateTime rowDate = row.getLocalStart().toLocalDateTime();
-            return rowDate.isAfter(now.minusDays(1)) && rowDate.isBefore(nowPlus1Week);
-        });
-        appointmentTableView.setItems(filteredData);
+        shownRange = ds.getAppointmentRange(now.minusDays(1), now.plusWeeks(1));
+        appointmentTableView.setItems(shownRange.getItems());
     }
 
     /**
@@ -161,19 +167,19 @@ public class AppointmentController implements Initializable {
      */
     @FXML
     private void AppointmentMonthRadioButtonHandler(ActionEvent event) {
-        //set table filter to show appointments within the current month
+        //set table to show appointments within the current month, read from the start time index
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nowPlus1Month = now.plusMonths(1);
-        FilteredList<Appointment> filteredData = new FilteredList<>(ds.getAllAppointments());
-        /**
-         * Lambda filter on appointments to reduce code and allow for higher efficiency
-         * in sorting through the appointment collection by allowing sequential/parallel processing
-         */
-        filteredData.setPredicate(row -> {
-            LocalDateTime rowDate = row.getLocalStart().toLocalDateTime();
-            return rowDate.isAfter(now.minusDays(1)) && rowDate.isBefore(nowPlus1Month);
-        });
-        appointmentTableView.setItems(filteredData);
+        shownRange = ds.getAppointmentRange(now.minusDays(1), now.plusMonths(1));
+        appointmentTableView.setItems(shownRange.getItems());
+    }
+
+    /**
+     * Gets stored appointment selected in table, since table rows may be views made from the column store
+     * @return Selected appointment, or null if none is selected
+     */
+    private Appointment getSelectedAppointment() {
+        Appointment selected = appointmentTableView.getSelectionModel().getSelectedItem();
+        return selected == null ? null : ds.getAppointment(selected.getAppointmentId());
     }
 
     /**
@@ -201,7 +207,7 @@ public class AppointmentController implements Initializable {
     @FXML
     private void handleModifyAppointmentButtonAction(ActionEvent event) throws IOException {
         //get user selected appointment from table
-        Appointment selectedAppointment = appointmentTableView.getSelectionModel().getSelectedItem();
+        Appointment selectedAppointment = getSelectedAppointment();
         if (selectedAppointment != null) {
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("../View/modifyappointment.fxml"));
@@ -225,26 +231,21 @@ public class AppointmentController implements Initializable {
      * Deletes selected appointment from database and local data store and triggers
      * appropriate alert for successful/failed deletion attempt
      * @param event Button click event
-     * @throws SQLException Fails to delete selected appointment from database
      */
     @FXML
-    private void handleDeleteAppointmentButtonAction(ActionEvent event) throws SQLException {
-        if (appointmentTableView.getSelectionModel().getSelectedItem() != null) {
-            ObservableList<Appointment> data = FXCollections.observableArrayList();
-            data = appointmentTableView.getItems();
-            // delete appointment by selected ID
-            var deleteSql = "DELETE FROM appointments WHERE Appointment_ID = "+appointmentTableView.getSelectionModel().getSelectedItem().getAppointmentId();
-            try (var ps = DBConnect.getConn().prepareStatement(deleteSql)) {
-                ps.executeUpdate();
-            }
-            // delete selected appointment from local table
-            data.remove(appointmentTableView.getSelectionModel().getSelectedItem());
-            appointmentTableView.setItems(data);
+    private void handleDeleteAppointmentButtonAction(ActionEvent event) {
+        Appointment selected = getSelectedAppointment();
+        if (selected != null) {
+            // delete selected appointment from local data, then from database in the background
+            int index = ds.getAllAppointments().indexOf(selected);
+            ds.getAllAppointments().remove(selected);
+            DBConnect.getWriteQueue().delete("appointments", selected.getAppointmentId(), rb.getString("appointment") + " " + selected.getAppointmentId(),
+                    () -> ds.reinsertAppointment(index, selected), Query.DELETE_APPOINTMENT, selected.getAppointmentId());
             // show successful deletion message with details for deleted appointment
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle(rb.getString("appointment_delete_title"));
             alert.setHeaderText(rb.getString("appointment_delete_title"));
-            alert.setContentText(rb.getString("appointment_delete_title")+" #"+appointmentTableView.getSelectionModel().getSelectedItem().getAppointmentId()+", "+appointmentTableView.getSelectionModel().getSelectedItem().getType());
+            alert.setContentText(rb.getString("appointment_delete_title")+" #"+selected.getAppointmentId()+", "+selected.getType());
             alert.showAndWait();
         } else {
             //show error message if no appointment is selected for deletion
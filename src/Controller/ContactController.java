@@ -2,8 +2,6 @@ package Controller;
 
 import Model.DataStore;
 import Model.Contact;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,6 +13,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.io.IOException;
 import java.net.URL;
@@ -150,26 +149,23 @@ public class ContactController implements Initializable {
      */
     @FXML
     private void handleDeleteContactButtonAction(ActionEvent event) {
-        ObservableList<Contact> data = FXCollections.observableArrayList();
-        if (contactTableView.getSelectionModel().getSelectedItem() != null) {
-            data = contactTableView.getItems();
-            // delete contact by selected ID
-            var deleteSql = "DELETE FROM contacts WHERE Contact_ID = "+contactTableView.getSelectionModel().getSelectedItem().getId();
-            try (var ps = DBConnect.getConn().prepareStatement(deleteSql)) {
-                ps.executeUpdate();
-            } catch(SQLException e) {
-                // show error if customer deletion fails
+        Contact selected = contactTableView.getSelectionModel().getSelectedItem();
+        if (selected != null) {
+            int contactId = selected.getId();
+            if (ds.getContactSchedules().hasAppointments(contactId)) {
+                // show error if contact still has appointments
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle(rb.getString("error"));
                 alert.setHeaderText(rb.getString("contact_delete_error_title"));
                 alert.setContentText(rb.getString("contact_delete_error_message"));
                 alert.showAndWait();
-                e.printStackTrace();
+                return;
             }
-
-            // delete selected contact from local table
-            data.remove(contactTableView.getSelectionModel().getSelectedItem());
-            contactTableView.setItems(data);
+            // delete selected contact from local data, then from database in the background
+            int index = ds.getAllContacts().indexOf(selected);
+            ds.getAllContacts().remove(selected);
+            DBConnect.getWriteQueue().delete("contacts", contactId, rb.getString("contact") + " " + selected.getName(),
+                    () -> ds.reinsertContact(index, selected), Query.DELETE_CONTACT, contactId);
         } else {
             //show error message if no appointment is selected for deletion
             Alert alert = new Alert(Alert.AlertType.ERROR);
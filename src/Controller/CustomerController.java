@@ -2,8 +2,6 @@ package Controller;
 
 import Model.DataStore;
 import Model.Customer;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,6 +13,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.io.IOException;
 import java.net.URL;
@@ -154,35 +153,32 @@ public class CustomerController implements Initializable {
      * Deletes selected customer from database and local data store and triggers
      * appropriate alert for successful/failed deletion attempt
      * @param event Button click event
-     * @throws SQLException Fails to delete selected customer from database
      */
     @FXML
-    private void handleDeleteCustomerButtonAction(ActionEvent event) throws SQLException {
-        ObservableList<Customer> data = FXCollections.observableArrayList();
-        if (customerTableView.getSelectionModel().getSelectedItem() != null) {
-            data = customerTableView.getItems();
-            try {
-                var deleteSql = "DELETE FROM customers WHERE Customer_ID = "+customerTableView.getSelectionModel().getSelectedItem().getCustomerId();
-                try (var ps = DBConnect.getConn().prepareStatement(deleteSql)) {
-                    ps.executeUpdate();
-                }
-                data.remove(customerTableView.getSelectionModel().getSelectedItem());
-                customerTableView.setItems(data);
-                // show successful deletion message
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle(rb.getString("customer_delete_title"));
-                alert.setHeaderText(rb.getString("customer_delete_title"));
-                alert.setContentText(rb.getString("customer_delete_message"));
-                alert.showAndWait();
-            } catch(SQLException e) {
-                // show error if customer deletion fails
+    private void handleDeleteCustomerButtonAction(ActionEvent event) {
+        Customer selected = customerTableView.getSelectionModel().getSelectedItem();
+        if (selected != null) {
+            int customerId = selected.getCustomerId();
+            if (ds.getCustomerSchedules().hasAppointments(customerId)) {
+                // show error if customer still has appointments
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle(rb.getString("error"));
                 alert.setHeaderText(rb.getString("customer_delete_error_title"));
                 alert.setContentText(rb.getString("customer_delete_error_message"));
                 alert.showAndWait();
-                e.printStackTrace();
+                return;
             }
+            // delete selected customer from local data, then from database in the background
+            int index = ds.getAllCustomers().indexOf(selected);
+            ds.getAllCustomers().remove(selected);
+            DBConnect.getWriteQueue().delete("customers", customerId, rb.getString("customer") + " " + selected.getCustomerName(),
+                    () -> ds.reinsertCustomer(index, selected), Query.DELETE_CUSTOMER, customerId);
+            // show successful deletion message
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(rb.getString("customer_delete_title"));
+            alert.setHeaderText(rb.getString("customer_delete_title"));
+            alert.setContentText(rb.getString("customer_delete_message"));
+            alert.showAndWait();
         } else {
             //show error if customer is not selected for deletion
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -3,7 +3,7 @@ package Controller;
 import Main.Main;
 import Model.Appointment;
 import Model.DataStore;
-import javafx.collections.transformation.FilteredList;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -14,12 +14,15 @@ import javafx.scene.control.*;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.DBQuery;
+import utils.Query;
 
 import java.io.*;
 import java.net.URL;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
@@ -95,12 +98,8 @@ public class LoginController implements Initializable {
         LocalDateTime nowPlus15Min = now.plusMinutes(15);
         // format date with 12 hour AM/PM time
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd KK:mm:ss a");
-        //filter appointments by start time within 15 minutes of current time
-        FilteredList<Appointment> filteredData = new FilteredList<>(ds.getAllAppointments());
-        filteredData.setPredicate(row -> {
-            LocalDateTime rowDate = row.getLocalStart().toLocalDateTime();
-            return rowDate.isAfter(now.minusMinutes(1)) && rowDate.isBefore(nowPlus15Min);
-        });
+        //find appointments by start time within 15 minutes of current time
+        List<Appointment> filteredData = ds.getAppointmentsStarting(now.minusMinutes(1), nowPlus15Min);
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         //if there are appointments in the next 15 minutes, list the appointment id and start date/time in alert message
         if (!filteredData.isEmpty()) {
@@ -132,10 +131,8 @@ public class LoginController implements Initializable {
         String passwordFieldText = passwordField.getText();
         String login_activity_message = "";
         Timestamp current_time = new Timestamp( new java.sql.Date(System.currentTimeMillis()).getTime());
-        try {
-            String rq1 = "SELECT * FROM users WHERE User_Name = '"+userNameFieldText+"';";
-            Statement st1 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(rq1);
+        try (Connection conn = DBConnect.getConn();
+             ResultSet rs1 = DBQuery.executeQuery(conn, Query.USER_LOGIN, userNameFieldText)) {
             while (rs1.next()) {
                 String userID = rs1.getString("User_Name");
                 String userPW = rs1.getString("Password");
@@ -149,18 +146,34 @@ public class LoginController implements Initializable {
         }
 
         if (valid) {
-            // show recent appointment alert and set valid login logging message
-            appointmentAlert();
+            // set valid login logging message
             login_activity_message = current_time+": LOGIN SUCCESS by "+userNameFieldText+"\n";
-            // allow navigation to appointments after valid login
             ds.addUser(userNameFieldText);
+            // once startup data has loaded, show recent appointment alert and allow navigation to appointments
+            loginButton.setDisable(true);
             Stage stage = (Stage) ((Node)event.getSource()).getScene().getWindow();
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("../View/appointments.fxml"));
-            Controller.AppointmentController controller = new Controller.AppointmentController(ds);
-            loader.setController(controller);
-            Scene scene = new Scene((Pane)loader.load());
-            stage.setScene(scene);
-            stage.show();
+            ds.whenDataLoaded().whenCompleteAsync((loaded, error) -> {
+                if (error != null) {
+                    // without its data the application cannot be used, so stay on the login screen
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle(rb.getString("error"));
+                    alert.setHeaderText(rb.getString("load_failed_title"));
+                    alert.setContentText(rb.getString("load_failed_message"));
+                    alert.showAndWait();
+                    return;
+                }
+                appointmentAlert();
+                try {
+                    FXMLLoader loader = new FXMLLoader(getClass().getResource("../View/appointments.fxml"));
+                    Controller.AppointmentController controller = new Controller.AppointmentController(ds);
+                    loader.setController(controller);
+                    Scene scene = new Scene((Pane)loader.load());
+                    stage.setScene(scene);
+                    stage.show();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, Platform::runLater);
         } else {
             // show login failure alert
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -11,6 +11,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 
 import utils.DBConnect;
+import utils.Query;
 import utils.Time;
 import javafx.event.ActionEvent;
 import javafx.scene.layout.Pane;
@@ -63,31 +64,6 @@ public class ModifyAppointmentController implements Initializable {
      */
     @FXML
     private ComboBox<String> contactBoxField, customerBoxField, userBoxField, startHour, startMin, endHour, endMin;
-    /**
-     * List of available customers
-     */
-    private List<String> customers = new ArrayList<>();
-    /**
-     * List of available contacts
-     */
-    private List<String> contacts = new ArrayList<>();
-    /**
-     * List of available users
-     */
-    private List<String> users = new ArrayList<>();
-    /**
-     * Selected customer
-     */
-    private String customer;
-    /**
-     * Selected contact
-     */
-    private String contact;
-    /**
-     * Selected user
-     */
-    private String user;
-
 
     /**
      *
@@ -140,43 +116,11 @@ public class ModifyAppointmentController implements Initializable {
      */
     @FXML
     private void loadComboBoxes() {
-        String rq1 = "SELECT * FROM contacts";
-        String rq2 = "SELECT * FROM customers";
-        String rq3 = "SELECT * FROM users";
-        try {
-            Statement st1 = DBConnect.getConn().createStatement();
-            Statement st2 = DBConnect.getConn().createStatement();
-            Statement st3 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(rq1);
-            ResultSet rs2 = st2.executeQuery(rq2);
-            ResultSet rs3 = st3.executeQuery(rq3);
-            this.contactBoxField.getItems().clear();
-            this.contacts.clear();
-            this.customerBoxField.getItems().clear();
-            this.customers.clear();
-            this.userBoxField.getItems().clear();
-            this.users.clear();
-            while (rs1.next()) {
-                String contact = rs1.getString("Contact_Name");
-                contactBoxField.getItems().add(contact);
-                this.contacts.add(contact);
-                this.contact = contact ;
-            }
-            while (rs2.next()) {
-                String customer = rs2.getString("Customer_Name");
-                this.customerBoxField.getItems().add(customer);
-                this.customers.add(customer);
-                this.customer = customer;
-            }
-            while (rs3.next()) {
-                String user = rs3.getString("User_Name");
-                this.userBoxField.getItems().add(user);
-                this.users.add(user);
-                this.user = user;
-            }
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        //load contact, customer, and user dropdowns from cached reference data
+        ReferenceData referenceData = ds.getReferenceData();
+        contactBoxField.setItems(referenceData.getContactNames());
+        customerBoxField.setItems(referenceData.getCustomerNames());
+        userBoxField.setItems(referenceData.getUserNames());
     }
 
     /**
@@ -256,7 +200,7 @@ public class ModifyAppointmentController implements Initializable {
         titleField.setText(appointment.getTitle());
         descriptionField.setText(appointment.getDescription());
         locationField.setText(appointment.getLocation());
-        customerBoxField.setValue(this.customer);
+        customerBoxField.setValue(ds.getCustomerName(appointment.getCustomerId()));
         typeField.setText(appointment.getType());
         startTimeField.setValue(appointment.getLocalStart().toLocalDateTime().toLocalDate());
         startHour.setValue(Integer.toString(appointment.getLocalStart().toLocalDateTime().getHour()));
@@ -264,46 +208,41 @@ public class ModifyAppointmentController implements Initializable {
         endTimeField.setValue(appointment.getLocalEnd().toLocalDateTime().toLocalDate());
         endHour.setValue(Integer.toString(appointment.getLocalEnd().toLocalDateTime().getHour()));
         endMin.setValue(Integer.toString(appointment.getLocalEnd().toLocalDateTime().getMinute()));
-        userBoxField.setValue(this.user);
-        contactBoxField.setValue(this.contact);
+        userBoxField.setValue(ds.getUserName(appointment.getUserId()));
+        contactBoxField.setValue(ds.getContactName(appointment.getContactId()));
     }
 
     /**
-     * Validates selected appointment time is within business hours and does not conflict with existing customer appointment.
+     * Validates selected appointment time is within business hours and does not overlap existing appointments
+     * of the same customer, contact, or user.
      * Throws appropriate error alert if hours conflict.
      * @param utcStart Selected meeting start time in Timestamp format
      * @param utcEnd Selected meeting end time in Timestamp format
+     * @param localStart Selected meeting start time in local time
+     * @param localEnd Selected meeting end time in local time
      * @param customerId Selected customer
+     * @param contactId Selected contact
+     * @param userId Selected user
      * @param appointmentId Selected appointment being validated
      * @return Boolean if selected appointment hours are valid or not
      */
-    private boolean validateAppointment(Timestamp utcStart, Timestamp utcEnd, int customerId, int appointmentId) {
+    private boolean validateAppointment(Timestamp utcStart, Timestamp utcEnd, Timestamp localStart, Timestamp localEnd,
+                                        int customerId, int contactId, int userId, int appointmentId) {
         ZonedDateTime UtcStart = ZonedDateTime.of(utcStart.toLocalDateTime(), ZoneId.of("UTC"));
         ZonedDateTime EstStart = UtcStart.withZoneSameInstant(ZoneId.of("America/New_York"));
         ZonedDateTime UtcEnd = ZonedDateTime.of(utcEnd.toLocalDateTime(), ZoneId.of("UTC"));
         ZonedDateTime EstEnd = UtcEnd.withZoneSameInstant(ZoneId.of("America/New_York"));
 
-        try {
-            String sq1 = "SELECT * FROM appointments WHERE Customer_ID = '"+customerId+"' AND Appointment_ID != '"+appointmentId+"';";
-            Statement st1 = DBConnect.getConn().createStatement();
-            ResultSet qrs1 = st1.executeQuery(sq1);
-            String start = "";
-            String end = "";
-            while (qrs1.next()) {
-                start = qrs1.getString("Start");
-                end = qrs1.getString("End");
-                ZonedDateTime UTCCustomerStart = ZonedDateTime.of(Timestamp.valueOf(start).toLocalDateTime(), ZoneId.of("UTC"));
-                ZonedDateTime UTCCustomerEnd = ZonedDateTime.of(Timestamp.valueOf(end).toLocalDateTime(), ZoneId.of("UTC"));
-                if ( UTCCustomerStart.getDayOfYear() == UtcStart.getDayOfYear() && UtcStart.compareTo(UTCCustomerStart) < 1 && UtcEnd.compareTo(UTCCustomerEnd)  < 1) {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle(rb.getString("schedule_conflict"));
-                    alert.setHeaderText(rb.getString("customer_schedule_conflict"));
-                    alert.showAndWait();
-                    return false;
-                }
-            }
-        } catch(Exception e) {
-            e.printStackTrace();
+        // Check that proposed meeting hours do not overlap the customer's, contact's, or user's other appointments
+        Map<ConflictEngine.Resource, List<Integer>> conflicts = ds.getConflictEngine().findConflicts(customerId, contactId, userId, localStart, localEnd, appointmentId);
+        if (!conflicts.isEmpty()) {
+            ConflictEngine.Resource resource = conflicts.keySet().iterator().next();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle(rb.getString("schedule_conflict"));
+            alert.setHeaderText(rb.getString(resource.name().toLowerCase(Locale.ROOT) + "_schedule_conflict"));
+            alert.setContentText(rb.getString("conflicting_appointments") + " " + conflicts.get(resource));
+            alert.showAndWait();
+            return false;
         }
         if (EstStart.getHour() > 22 || EstStart.getHour() < 8 || EstEnd.getHour() > 22 || EstEnd.getHour() < 8) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -348,43 +287,12 @@ public class ModifyAppointmentController implements Initializable {
         Timestamp localEndTimestamp = localTime.convertTimeToLocal(endTime, endHourValue, endMinValue);
 
             try {
-                System.out.println("Connection is successful !!!!! Updating customers...");
-                String sq1 = "SELECT * FROM contacts WHERE Contact_Name = '"+contactFieldText+"';";
-                Statement st1 = DBConnect.getConn().createStatement();
-                ResultSet qrs1 = st1.executeQuery(sq1);
-                int contactId = 0;
-                while (qrs1.next()) {
-                    contactId = qrs1.getInt("Contact_ID");
-                }
-                String sq2 = "SELECT * FROM customers WHERE Customer_Name = '"+customerIdFieldText+"';";
-                st1 = DBConnect.getConn().createStatement();
-                ResultSet qrs2 = st1.executeQuery(sq2);
-                int customerId = 0;
-                while (qrs2.next()) {
-                    customerId = qrs2.getInt("Customer_ID");
-                }
-                String sq3 = "SELECT * FROM users WHERE User_Name = '"+userBoxFieldText+"';";
-                st1 = DBConnect.getConn().createStatement();
-                ResultSet qrs3 = st1.executeQuery(sq3);
-                int userId = 0;
-                while (qrs3.next()) {
-                    userId = qrs3.getInt("User_ID");
-                }
-                if (validateAppointment(utcStartTime, utcEndTime, customerId, newId)) {
-                    String updateSql = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Last_Update = ?, Last_Updated_By = ?, Start = ?, End = ?, Contact_ID = ?, Customer_ID = ?, User_ID = ? WHERE Appointment_ID = ?";
-                    PreparedStatement myInsert = DBConnect.getConn().prepareStatement(updateSql);
-                    myInsert.setString(1, titleFieldText);
-                    myInsert.setString(2, descriptionFieldText);
-                    myInsert.setString(3, locationFieldText);
-                    myInsert.setString(4, typeFieldText);
-                    myInsert.setTimestamp(5, current_time);
-                    myInsert.setString(6, last_updated_by);
-                    myInsert.setTimestamp(7, localStartTimestamp);
-                    myInsert.setTimestamp(8, localEndTimestamp);
-                    myInsert.setInt(9, contactId);
-                    myInsert.setInt(10, customerId);
-                    myInsert.setInt(11, userId);
-                    myInsert.setInt(12, newId);
+                // resolve selected names to IDs from local lookups
+                int contactId = ds.getContactId(contactFieldText);
+                int customerId = ds.getCustomerId(customerIdFieldText);
+                int userId = ds.getUserId(userBoxFieldText);
+                if (validateAppointment(utcStartTime, utcEndTime, localStartTimestamp, localEndTimestamp, customerId, contactId, userId, newId)) {
+                    Appointment previous = new Appointment(appointment);
                     appointment.setName(titleFieldText);
                     appointment.setDescription(descriptionFieldText);
                     appointment.setLocation(locationFieldText);
@@ -394,15 +302,15 @@ public class ModifyAppointmentController implements Initializable {
                     appointment.setUserId(userId);
                     appointment.setStart(utcStartTime);
                     appointment.setLocalStart(localStartTimestamp);
-                    appointment.setFormattedLocalStart(localStartTimestamp);
                     appointment.setEnd(utcEndTime);
                     appointment.setLocalEnd(localEndTimestamp);
-                    appointment.setFormattedLocalEnd(localEndTimestamp);
                     appointment.setLastUpdate(current_time);
                     appointment.setLastUpdatedBy(last_updated_by);
-                    try (var ps = myInsert) {
-                        ps.executeUpdate();
-                    }
+                    ds.updateAppointment(appointment);
+                    // save to database in the background, undoing the edits if they cannot be saved
+                    DBConnect.getWriteQueue().update("appointments", newId, rb.getString("appointment") + " " + newId,
+                            () -> ds.revertAppointment(appointment, previous), Query.UPDATE_APPOINTMENT, titleFieldText, descriptionFieldText, locationFieldText, typeFieldText,
+                            current_time, last_updated_by, localStartTimestamp, localEndTimestamp, contactId, customerId, userId, newId);
                     valid = true;
                 }
 
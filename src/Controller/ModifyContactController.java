@@ -12,6 +12,7 @@ import javafx.event.ActionEvent;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.io.IOException;
 import java.net.URL;
@@ -95,28 +96,22 @@ public class ModifyContactController implements Initializable {
      * Updates modification to contact
      * @param event Button click event
      * @throws IOException Fails to load contact management screen
-     * @throws SQLException Fails to update contact in database
      */
     @FXML
-    private void handleSaveContactButtonAction(ActionEvent event) throws IOException, SQLException {
+    private void handleSaveContactButtonAction(ActionEvent event) throws IOException {
         boolean valid = false;
         int newContactId = Integer.parseInt(contactIdField.getText());
         String newContactName = contactNameField.getText();
         String newEmail = contactEmailField.getText();
-        // attempt to update contacts in db with user inputted info
-        String updateSql = "UPDATE contacts SET Contact_Name = ?, Email = ? WHERE Contact_ID = ?";
-        PreparedStatement myInsert = DBConnect.getConn().prepareStatement(updateSql);
-        myInsert.setString(1,newContactName);
-        myInsert.setString(2,newEmail);
-        myInsert.setInt(3,newContactId);
-        try (var ps = myInsert) {
-            myInsert.executeUpdate();
-            //update local contact info if info is valid db updates successfully
-            contact.setId(newContactId);
-            contact.setName(newContactName);
-            contact.setEmail(newEmail);
-            valid = true;
-        }
+        // update local contact info, then save to database in the background
+        Contact previous = new Contact(contact);
+        contact.setId(newContactId);
+        contact.setName(newContactName);
+        contact.setEmail(newEmail);
+        ds.updateContact(contact);
+        DBConnect.getWriteQueue().update("contacts", newContactId, rb.getString("contact") + " " + newContactName,
+                () -> ds.revertContact(contact, previous), Query.UPDATE_CONTACT, newContactName, newEmail, newContactId);
+        valid = true;
         if (valid) {
             Stage stage = (Stage) ((Node)event.getSource()).getScene().getWindow();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("../View/contacts.fxml"));
@@ -12,6 +12,7 @@ import javafx.event.ActionEvent;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.Query;
 
 import java.io.IOException;
 import java.net.URL;
@@ -55,14 +56,6 @@ public class ModifyCustomerController implements Initializable {
      */
     @FXML
     private Button saveButton, cancelButton;
-    /**
-     * List of available countries
-     */
-    private List<String> countries = new ArrayList<>();
-    /**
-     * List of available divisions
-     */
-    private List<String> divisions = new ArrayList<>();
 
     /**
      * Controller for customer modification screen
@@ -127,29 +120,9 @@ public class ModifyCustomerController implements Initializable {
      * Loads country and division dropdowns with all values
      */
     private void loadComboBoxes() {
-        this.countryBoxField.getItems().clear();
-        this.countries.clear();
-        String rq1 = "SELECT Country_ID, Country FROM countries";
-        String rq2 = "SELECT Division_ID, Division FROM first_level_divisions d";
-        try {
-            Statement st1 = DBConnect.getConn().createStatement();
-            Statement st2 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(rq1);
-            ResultSet rs2 = st2.executeQuery(rq2);
-            while (rs1.next()) {
-                String country = rs1.getString("Country");
-                this.countryBoxField.getItems().add(country);
-                this.countries.add(country);
-            }
-            while (rs2.next()) {
-                String division = rs2.getString("Division");
-                this.divisionBoxField.getItems().add(division);
-                this.divisions.add(division);
-            }
-
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        Geography geography = ds.getGeography();
+        this.countryBoxField.setItems(geography.getCountries());
+        this.divisionBoxField.setItems(geography.getDivisions());
     }
 
     /**
@@ -159,30 +132,16 @@ public class ModifyCustomerController implements Initializable {
     @FXML
     private void updateDropdown(ActionEvent event) {
         String selectedCountry = countryBoxField.getValue();
-        this.divisionBoxField.getItems().removeAll(this.divisions);
-        this.divisions.clear();
-        String sql = "SELECT d.Division_ID, d.Division, d.COUNTRY_ID, c.Country_ID, c.Country FROM first_level_divisions d JOIN countries c ON (d.COUNTRY_ID = c.Country_ID) WHERE c.Country = '"+selectedCountry+"';";
-        try {
-            Statement st1 = DBConnect.getConn().prepareStatement(sql);
-            ResultSet rs1 = st1.executeQuery(sql);
-            while (rs1.next()) {
-                String division = rs1.getString("Division");
-                this.divisionBoxField.getItems().add(division);
-                this.divisions.add(division);
-            }
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        this.divisionBoxField.setItems(ds.getGeography().getDivisions(selectedCountry));
     }
 
     /**
      * Updates modification to customer
      * @param event Button click event
      * @throws IOException Fails to load customer management screen
-     * @throws SQLException Fails to update customer in database
      */
     @FXML
-    private void handleSaveCustomerButtonAction(ActionEvent event) throws IOException, SQLException {
+    private void handleSaveCustomerButtonAction(ActionEvent event) throws IOException {
         boolean valid = false;
         int newCustomerId = Integer.parseInt(customerIdField.getText());
         String newCustomerName = customerNameField.getText();
@@ -193,41 +152,23 @@ public class ModifyCustomerController implements Initializable {
         String last_updated_by = ds.getUser();
         String divisionText = divisionBoxField.getSelectionModel().getSelectedItem();
         String countryText = countryBoxField.getSelectionModel().getSelectedItem();
-        try {
-            System.out.println("Connection is successful !!!!! Updating customers...");
-            String rq1 = "SELECT * FROM first_level_divisions WHERE Division = '"+divisionText+"';";
-            Statement st1 = DBConnect.getConn().createStatement();
-            ResultSet rs1 = st1.executeQuery(rq1);
-            int divisionId = 0;
-            while (rs1.next()) {
-                divisionId = rs1.getInt("Division_ID");
-            }
-            String updateSql = "UPDATE customers SET Customer_Name = ?, ADDRESS = ?, Phone = ?, Postal_Code = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
-            PreparedStatement myInsert = DBConnect.getConn().prepareStatement(updateSql);
-            myInsert.setString(1,newCustomerName);
-            myInsert.setString(2,newAddress);
-            myInsert.setString(3,newPhone);
-            myInsert.setString(4,newPostalCode);
-            myInsert.setTimestamp(5, current_time);
-            myInsert.setString(6, last_updated_by);
-            myInsert.setInt(7, divisionId);
-            myInsert.setInt(8, newCustomerId);
-            customer.setId(newCustomerId);
-            customer.setName(newCustomerName);
-            customer.setAddress(newAddress);
-            customer.setPostalCode(newPostalCode);
-            customer.setPhone(newPhone);
-            customer.setLastUpdate(current_time);
-            customer.setLastUpdatedBy(last_updated_by);
-            customer.setDivision(divisionText);
-            customer.setCountry(countryText);
-            try (var ps = myInsert) {
-                ps.executeUpdate();
-            }
-            valid = true;
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        int divisionId = ds.getGeography().getDivisionId(divisionText);
+        Customer previous = new Customer(customer);
+        customer.setId(newCustomerId);
+        customer.setName(newCustomerName);
+        customer.setAddress(newAddress);
+        customer.setPostalCode(newPostalCode);
+        customer.setPhone(newPhone);
+        customer.setLastUpdate(current_time);
+        customer.setLastUpdatedBy(last_updated_by);
+        customer.setDivision(divisionText);
+        customer.setCountry(countryText);
+        ds.updateCustomer(customer);
+        // save to database in the background, restoring the previous values if it cannot be saved
+        DBConnect.getWriteQueue().update("customers", newCustomerId, rb.getString("customer") + " " + newCustomerName,
+                () -> ds.revertCustomer(customer, previous), Query.UPDATE_CUSTOMER, newCustomerName, newAddress, newPhone, newPostalCode,
+                current_time, last_updated_by, divisionId, newCustomerId);
+        valid = true;
         if (valid) {
             Stage stage = (Stage) ((Node)event.getSource()).getScene().getWindow();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("../View/customers.fxml"));
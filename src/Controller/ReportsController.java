@@ -1,13 +1,18 @@
 package Controller;
 
+import Main.ReportExecutor;
 import Model.DataStore;
 import Model.Appointment;
+import Model.AppointmentColumns;
+import Model.AppointmentCube;
+import Model.AppointmentTimeSeries;
+import Model.SymbolTable;
 import Model.Report;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,16 +20,23 @@ import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
+import utils.RowWriter;
 
-import java.time.format.TextStyle;
+import java.time.YearMonth;
 import java.util.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Controller for reports screen
@@ -83,6 +95,75 @@ public class ReportsController implements Initializable {
      */
     @FXML
     private ComboBox<String> contactBoxField, locationBox;
+    /**
+     * Positions of the type, month, location, and contact schedule tabs; the explore tab follows them
+     */
+    private static final int TYPE_TAB = 0, MONTH_TAB = 1, LOCATION_TAB = 2, SCHEDULE_TAB = 3;
+    /**
+     * Report tabs
+     */
+    @FXML
+    private TabPane reportTabs;
+    /**
+     * Buttons that export the selected tab to a file
+     */
+    @FXML
+    private Button exportCsvButton, exportJsonButton;
+    /**
+     * Tab for exploring appointment totals
+     */
+    @FXML
+    private Tab exploreTab;
+    /**
+     * Dropdown for dimension the explore table is grouped by
+     */
+    @FXML
+    private ComboBox<AppointmentCube.Dimension> dimensionBox;
+    /**
+     * Labels for explore tab grouping and drill-down path
+     */
+    @FXML
+    private Label groupByLabel, drillPathLabel;
+    /**
+     * Button that undoes the last drill-down
+     */
+    @FXML
+    private Button rollUpButton;
+    /**
+     * Explore table of cube totals
+     */
+    @FXML
+    private TableView<AppointmentCube.Group> cubeTableView;
+    /**
+     * Value column of explore table
+     */
+    @FXML
+    private TableColumn<AppointmentCube.Group, String> colCubeValue;
+    /**
+     * Number columns of explore table
+     */
+    @FXML
+    private TableColumn<AppointmentCube.Group, Long> colCubeCount, colCubeMinutes;
+    /**
+     * Runs count reports from the data store, or in the database for large histories
+     */
+    private final ReportExecutor reportExecutor;
+    /**
+     * Background thread that writes export files
+     */
+    private static final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "report-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Counts by type, month, location, contact, and country, built once when the screen opens
+     */
+    private AppointmentCube cube;
+    /**
+     * Values fixed by drilling down, in the order they were chosen
+     */
+    private final Map<AppointmentCube.Dimension, Integer> drillFilters = new LinkedHashMap<>();
     /**
      * List for reportable attribute
      */
@@ -102,6 +183,7 @@ public class ReportsController implements Initializable {
      */
     public ReportsController(DataStore ds) {
         this.ds = ds;
+        this.reportExecutor = new ReportExecutor(ds);
     }
     /**
      * Initializes screen with translated labels, default filter settings, and
@@ -120,6 +202,8 @@ public class ReportsController implements Initializable {
         loadLocationList();
         // appointments by contact
         loadAppointmentContacts();
+        // drill-down and roll-up over all attributes
+        loadCube();
     }
     /**
      * Sets strings in user interface to translated text
@@ -139,34 +223,20 @@ public class ReportsController implements Initializable {
         contactButton.setText(rb.getString("contacts"));
         customerButton.setText(rb.getString("customers"));
         exitButton.setText(rb.getString("exit"));
+
+        exportCsvButton.setText(rb.getString("export_csv"));
+        exportJsonButton.setText(rb.getString("export_json"));
+        exploreTab.setText(rb.getString("explore"));
+        groupByLabel.setText(rb.getString("group_by"));
+        rollUpButton.setText(rb.getString("roll_up"));
+        colCubeCount.setText(rb.getString("total"));
+        colCubeMinutes.setText(rb.getString("total_minutes"));
     }
 
     /**
      * Load report for appointment counts by type
      */
     private void loadTypeList() {
-        typeList = FXCollections.observableArrayList();
-        ObservableList<String> typeData = FXCollections.observableArrayList();
-        ArrayList <Integer> typeCount = new ArrayList<>();
-        //loop through all appointments and get type summary
-        for (int row = 0; row < ds.getAllAppointments().size(); row++) {
-            //add new types to type list
-            if (!typeData.contains(ds.getAllAppointments().get(row).getType())) {
-                typeData.add(ds.getAllAppointments().get(row).getType());
-                typeCount.add(1);
-            } else {
-                //add to count number for existing types
-                Integer typeIndex = typeData.indexOf(ds.getAllAppointments().get(row).getType());
-                typeCount.set(typeIndex, typeCount.get(typeIndex) +1 );
-            }
-        }
-        // loop through unique types and add to report
-        for (int row = 0; row < typeData.size(); row++) {
-            typeList.add(new Report(
-                    new ReadOnlyObjectWrapper(typeCount.get(row)),
-                    new ReadOnlyStringWrapper(typeData.get(row))
-            ));
-        }
         /**
          * Lambda processing on appointment report to reduce code and allow for higher efficiency
          * in setting report collection data to table by allowing sequential/parallel processing
@@ -178,38 +248,17 @@ public class ReportsController implements Initializable {
         colTypeTotal.setCellValueFactory(cellData -> {
             return cellData.getValue().getCount();
         });
-        typeTotalTable.setItems(typeList);
+        // counted in memory, or by the database for large histories
+        reportExecutor.typeReport().thenAccept(reports -> {
+            typeList = reports;
+            typeTotalTable.setItems(typeList);
+        });
     }
 
     /**
      * Load reports for appointment counts by month into table
      */
     private void loadMonthList() {
-        monthList = FXCollections.observableArrayList();
-        ObservableList<String> monthData = FXCollections.observableArrayList();
-        ArrayList <Integer> monthCount = new ArrayList<>();
-        String month = "";
-        //loop through all appointments and get month summary
-        for (int row = 0; row < ds.getAllAppointments().size(); row++) {
-            Locale locale = Locale.getDefault();
-            month = ds.getAllAppointments().get(row).getLocalStart().toLocalDateTime().getMonth().getDisplayName(TextStyle.FULL, locale);
-            //add new month to month list
-            if (!monthData.contains(month)) {
-                monthData.add(month);
-                monthCount.add(1);
-            } else {
-                //add to count number for existing months
-                monthData.indexOf(month);
-                monthCount.set(monthData.indexOf(month), monthCount.get(monthData.indexOf(month)) +1 );
-            }
-        }
-        // loop through unique months and add to report
-        for (int row = 0; row < monthData.size(); row++) {
-            monthList.add(new Report(
-                    new ReadOnlyObjectWrapper(monthCount.get(row)),
-                    new ReadOnlyStringWrapper(monthData.get(row))
-            ));
-        }
         /**
          * Lambda processing on appointment report to reduce code and allow for higher efficiency
          * in setting report collection data to table by allowing sequential/parallel processing
@@ -220,34 +269,16 @@ public class ReportsController implements Initializable {
         colMonthTotal.setCellValueFactory(cellData -> {
             return cellData.getValue().getCount();
         });
-        monthTotalTable.setItems(monthList);
+        // one row per month of each year, counted in memory or by the database
+        reportExecutor.monthReport(Locale.getDefault()).thenAccept(reports -> {
+            monthList = reports;
+            monthTotalTable.setItems(monthList);
+        });
     }
     /**
      * Load report for location counts of appointments
      */
     private void loadLocationList() {
-        locationList = FXCollections.observableArrayList();
-        ObservableList<String> locationData = FXCollections.observableArrayList();
-        ArrayList <Integer> locationCount = new ArrayList<>();
-        //loop through all appointments and get location summary
-        for (int row = 0; row < ds.getAllAppointments().size(); row++) {
-            //add new location to location list
-            if (!locationData.contains(ds.getAllAppointments().get(row).getLocation())) {
-                locationData.add(ds.getAllAppointments().get(row).getLocation());
-                locationCount.add(1);
-            } else {
-                //add to count number for existing locations
-                locationData.indexOf(ds.getAllAppointments().get(row).getLocation());
-                locationCount.set(locationData.indexOf(ds.getAllAppointments().get(row).getLocation()), locationCount.get(locationData.indexOf(ds.getAllAppointments().get(row).getLocation())) +1 );
-            }
-        }
-        // loop through unique locations and add to report
-        for (int row = 0; row < locationData.size(); row++) {
-            locationList.add(new Report(
-                    new ReadOnlyObjectWrapper(locationCount.get(row)),
-                    new ReadOnlyStringWrapper(locationData.get(row))
-            ));
-        }
         /**
          * Lambda processing on appointment report to reduce code and allow for higher efficiency
          * in setting report collection data to table by allowing sequential/parallel processing
@@ -258,7 +289,11 @@ public class ReportsController implements Initializable {
         colLocationTotal.setCellValueFactory(cellData -> {
             return cellData.getValue().getCount();
         });
-        locationTableView.setItems(locationList);
+        // counted in memory, or by the database for large histories
+        reportExecutor.locationReport().thenAccept(reports -> {
+            locationList = reports;
+            locationTableView.setItems(locationList);
+        });
     }
 
     /**
@@ -286,22 +321,302 @@ public class ReportsController implements Initializable {
     @FXML
     private void handleContactBoxAction(ActionEvent event) {
         String selectedContact = contactBoxField.getSelectionModel().getSelectedItem();
-        FilteredList<Appointment> filteredData = new FilteredList<>(ds.getAllAppointments());
-        /**
-         * Lambda filter on appointments to reduce code and allow for higher efficiency
-         * in sorting through the appointment collection by allowing sequential/parallel processing
-         */
-        filteredData.setPredicate(row -> {
-            Integer contactId = row.getContactId();
-            //return appointment if selected contact is set to "Any" or same contact as appointment
-            if (selectedContact == "Any" || selectedContact == ds.getAllContacts().get(contactId - 1).getName()) {
-                return true;
+        //show all appointments if selected contact is set to "Any"
+        if (selectedContact == null || rb.getString("any").equals(selectedContact)) {
+            appointmentTableView.setItems(ds.getAllAppointments());
+            return;
+        }
+        //show selected contact's schedule from the per-contact index, earliest first
+        int contactId = ds.getContactId(selectedContact);
+        appointmentTableView.setItems(FXCollections.observableArrayList(ds.getContactSchedules().all(contactId)));
+    }
+    /**
+     * Gets the appointment cube and shows it grouped by type
+     */
+    private void loadCube() {
+        cube = ds.getAppointmentCube();
+        colCubeValue.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(valueLabel(cellData.getValue().getDimension(), cellData.getValue().getValue())));
+        colCubeCount.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getCount()));
+        colCubeMinutes.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getMinutes()));
+        dimensionBox.setConverter(new StringConverter<AppointmentCube.Dimension>() {
+            @Override
+            public String toString(AppointmentCube.Dimension dimension) {
+                return dimension == null ? "" : rb.getString(dimension.name().toLowerCase(Locale.ROOT));
+            }
+
+            @Override
+            public AppointmentCube.Dimension fromString(String text) {
+                return null;
+            }
+        });
+        dimensionBox.getItems().setAll(AppointmentCube.Dimension.values());
+        dimensionBox.setValue(AppointmentCube.Dimension.TYPE);
+        showCube();
+    }
+
+    /**
+     * Shows cube totals for the selected grouping and drill-down path
+     */
+    private void showCube() {
+        AppointmentCube.Dimension groupBy = dimensionBox.getValue();
+        cubeTableView.setItems(FXCollections.observableArrayList(cube.rollUp(groupBy, drillFilters)));
+        colCubeValue.setText(rb.getString(groupBy.name().toLowerCase(Locale.ROOT)));
+        StringJoiner path = new StringJoiner(" > ");
+        for (Map.Entry<AppointmentCube.Dimension, Integer> filter : drillFilters.entrySet()) {
+            path.add(rb.getString(filter.getKey().name().toLowerCase(Locale.ROOT)) + ": " + valueLabel(filter.getKey(), filter.getValue()));
+        }
+        drillPathLabel.setText(path.toString());
+        rollUpButton.setDisable(drillFilters.isEmpty());
+    }
+
+    /**
+     * Gets display text of a cube dimension value
+     * @param dimension Dimension of the value
+     * @param value Symbol code, contact ID, or month number
+     * @return Text to show
+     */
+    private String valueLabel(AppointmentCube.Dimension dimension, int value) {
+        switch (dimension) {
+            case CONTACT:
+                return ds.getContactName(value);
+            case MONTH:
+                if (value == AppointmentCube.NO_MONTH) {
+                    return "";
+                }
+                return AppointmentTimeSeries.monthLabel(YearMonth.of(value / 12, value % 12 + 1), Locale.getDefault());
+            default:
+                return SymbolTable.lookup(value);
+        }
+    }
+
+    /**
+     * Regroups the explore table by the selected dimension
+     * @param event Dimension dropdown change
+     */
+    @FXML
+    private void handleDimensionBoxAction(ActionEvent event) {
+        if (cube != null && dimensionBox.getValue() != null) {
+            showCube();
+        }
+    }
+
+    /**
+     * Drills down into a double-clicked row, fixing its value and grouping by the next unfixed dimension
+     * @param event Mouse click on explore table
+     */
+    @FXML
+    private void handleCubeTableClick(MouseEvent event) {
+        AppointmentCube.Group selected = cubeTableView.getSelectionModel().getSelectedItem();
+        if (event.getClickCount() < 2 || selected == null) {
+            return;
+        }
+        drillFilters.put(selected.getDimension(), selected.getValue());
+        for (AppointmentCube.Dimension dimension : AppointmentCube.Dimension.values()) {
+            if (!drillFilters.containsKey(dimension)) {
+                dimensionBox.setValue(dimension);
+                break;
+            }
+        }
+        showCube();
+    }
+
+    /**
+     * Rolls up the last drill-down, grouping by its dimension again
+     * @param event Button click event
+     */
+    @FXML
+    private void handleRollUpButtonAction(ActionEvent event) {
+        AppointmentCube.Dimension last = null;
+        for (AppointmentCube.Dimension dimension : drillFilters.keySet()) {
+            last = dimension;
+        }
+        if (last != null) {
+            drillFilters.remove(last);
+            dimensionBox.setValue(last);
+            showCube();
+        }
+    }
+
+    /**
+     * Exports the selected tab to a CSV file
+     * @param event Button click event
+     */
+    @FXML
+    private void handleExportCsvButtonAction(ActionEvent event) {
+        export(event, RowWriter.Format.CSV);
+    }
+
+    /**
+     * Exports the selected tab to a JSON file
+     * @param event Button click event
+     */
+    @FXML
+    private void handleExportJsonButtonAction(ActionEvent event) {
+        export(event, RowWriter.Format.JSON);
+    }
+
+    /**
+     * Asks for a file and writes the rows of the selected tab to it.
+     * Rows are copied on the JavaFX thread and written in the background, so large exports do not freeze the screen.
+     * @param event Button click event
+     * @param format CSV or JSON
+     */
+    private void export(ActionEvent event, RowWriter.Format format) {
+        int tab = reportTabs.getSelectionModel().getSelectedIndex();
+        String extension = format.name().toLowerCase(Locale.ROOT);
+        String[] names = {"type_report", "month_report", "location_report", "contact_schedule"};
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(rb.getString("export"));
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(format.name(), "*." + extension));
+        chooser.setInitialFileName((tab < names.length ? names[tab] : "explore") + "." + extension);
+        File file = chooser.showSaveDialog(((Node) event.getSource()).getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        ExportTask task;
+        switch (tab) {
+            case TYPE_TAB:
+                task = exportReport(file, format, "Type", typeList);
+                break;
+            case MONTH_TAB:
+                task = exportReport(file, format, "Month", monthList);
+                break;
+            case LOCATION_TAB:
+                task = exportReport(file, format, "Location", locationList);
+                break;
+            case SCHEDULE_TAB:
+                task = exportSchedule(file, format);
+                break;
+            default:
+                task = exportCube(file, format);
+        }
+        exportCsvButton.setDisable(true);
+        exportJsonButton.setDisable(true);
+        exportExecutor.execute(() -> {
+            long rows = -1;
+            try {
+                rows = task.write();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-            return false;
+            long written = rows;
+            Platform.runLater(() -> {
+                exportCsvButton.setDisable(false);
+                exportJsonButton.setDisable(false);
+                Alert alert;
+                if (written < 0) {
+                    alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle(rb.getString("error"));
+                    alert.setHeaderText(rb.getString("error"));
+                    alert.setContentText(rb.getString("export_error"));
+                } else {
+                    alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle(rb.getString("export"));
+                    alert.setHeaderText(file.getName());
+                    alert.setContentText(rb.getString("export_done") + " " + written);
+                }
+                alert.showAndWait();
+            });
         });
-        //filter appointments by contact name
-        appointmentTableView.setItems(filteredData);
     }
+
+    /**
+     * Copies count report rows for writing to a file
+     * @param file File to write
+     * @param format CSV or JSON
+     * @param attribute Name of the grouped column
+     * @param reports Report rows, or null if not loaded yet
+     * @return Writes the copied rows and returns how many were written
+     */
+    private ExportTask exportReport(File file, RowWriter.Format format, String attribute, ObservableList<Report> reports) {
+        int count = reports == null ? 0 : reports.size();
+        String[] names = new String[count];
+        int[] totals = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = reports.get(i).getAttribute().getValue();
+            totals[i] = reports.get(i).getCount().getValue();
+        }
+        return () -> {
+            try (RowWriter writer = new RowWriter(file.toPath(), format, attribute, "Total")) {
+                for (int i = 0; i < count; i++) {
+                    writer.text(names[i]).number(totals[i]).endRow();
+                }
+                return writer.getRows();
+            }
+        };
+    }
+
+    /**
+     * Copies the selected contact's schedule, or every appointment, for writing to a file
+     * @param file File to write
+     * @param format CSV or JSON
+     * @return Writes the copied rows and returns how many were written
+     */
+    private ExportTask exportSchedule(File file, RowWriter.Format format) {
+        String[] columnNames = {"Appointment_ID", "Title", "Description", "Type", "Start", "End", "Customer_ID"};
+        String selectedContact = contactBoxField.getValue();
+        if (selectedContact == null || rb.getString("any").equals(selectedContact)) {
+            // copy the column arrays rather than making an appointment for each row
+            AppointmentColumns columns = ds.getAppointmentColumns().copy();
+            return () -> {
+                try (RowWriter writer = new RowWriter(file.toPath(), format, columnNames)) {
+                    for (int row = 0; row < columns.size(); row++) {
+                        writer.number(columns.getAppointmentId(row)).text(columns.getTitle(row)).text(columns.getDescription(row))
+                                .text(columns.getType(row)).dateTime(columns.getLocalStart(row)).dateTime(columns.getLocalEnd(row))
+                                .number(columns.getCustomerId(row)).endRow();
+                    }
+                    return writer.getRows();
+                }
+            };
+        }
+        // appointments are edited in place, so copy the ones being written
+        List<Appointment> schedule = new ArrayList<>();
+        ds.getContactSchedules().forEach(ds.getContactId(selectedContact), appointment -> schedule.add(new Appointment(appointment)));
+        return () -> {
+            try (RowWriter writer = new RowWriter(file.toPath(), format, columnNames)) {
+                for (Appointment appointment : schedule) {
+                    writer.number(appointment.getAppointmentId()).text(appointment.getTitle()).text(appointment.getDescription())
+                            .text(appointment.getType()).dateTime(millis(appointment.getLocalStart())).dateTime(millis(appointment.getLocalEnd()))
+                            .number(appointment.getCustomerId()).endRow();
+                }
+                return writer.getRows();
+            }
+        };
+    }
+
+    /**
+     * Copies the explore table's groups for writing to a file
+     * @param file File to write
+     * @param format CSV or JSON
+     * @return Writes the copied rows and returns how many were written
+     */
+    private ExportTask exportCube(File file, RowWriter.Format format) {
+        AppointmentCube.Dimension groupBy = dimensionBox.getValue();
+        String column = groupBy.name().charAt(0) + groupBy.name().substring(1).toLowerCase(Locale.ROOT);
+        List<AppointmentCube.Group> groups = new ArrayList<>(cubeTableView.getItems());
+        String[] labels = new String[groups.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = valueLabel(groups.get(i).getDimension(), groups.get(i).getValue());
+        }
+        return () -> {
+            try (RowWriter writer = new RowWriter(file.toPath(), format, column, "Total", "Minutes")) {
+                for (int i = 0; i < labels.length; i++) {
+                    writer.text(labels[i]).number(groups.get(i).getCount()).number(groups.get(i).getMinutes()).endRow();
+                }
+                return writer.getRows();
+            }
+        };
+    }
+
+    /**
+     * Gets epoch milliseconds of a time that may be missing
+     * @param time Time, may be null
+     * @return Epoch milliseconds, or Long.MIN_VALUE if missing
+     */
+    private static long millis(Date time) {
+        return time == null ? Long.MIN_VALUE : time.getTime();
+    }
+
     /**
      * Navigates to appointment management screen
      * @param event Button click event
@@ -363,4 +678,17 @@ public class ReportsController implements Initializable {
             stage.close();
         }
     }
+
+    /**
+     * Writes copied rows to an export file
+     */
+    @FunctionalInterface
+    private interface ExportTask {
+        /**
+         * Writes the file
+         * @return Number of rows written
+         * @throws IOException Fails to write file
+         */
+        long write() throws IOException;
+    }
 }
@@ -0,0 +1,148 @@
+package Main;
+
+import Model.*;
+import javafx.application.Platform;
+import utils.DBConnect;
+import utils.DBQuery;
+import utils.Query;
+import utils.RowMapper;
+import utils.RowMapperFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loads startup data from the WGU database in the background.
+ * Each table is read on its own pooled connection at the same time as the others,
+ * streamed from the database a fetch at a time, and added to the data store on the
+ * JavaFX thread in batches as the rows arrive.
+ */
+public class DataLoader {
+    /**
+     * Number of records handed to the JavaFX thread at a time
+     */
+    private static final int BATCH_ROWS = 1000;
+
+    /**
+     * Local data store where session data is saved
+     */
+    private final DataStore ds;
+
+    /**
+     * Creates startup data loader
+     * @param ds Local data store where session data is saved
+     */
+    public DataLoader(DataStore ds) {
+        this.ds = ds;
+    }
+
+    /**
+     * Starts loading customer, appointment, contact, user, and country/division data
+     * @return Completes once every table has been added to the data store, or exceptionally if any table failed to load
+     */
+    public CompletableFuture<Void> start() {
+        ExecutorService executor = newExecutor(5);
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(
+                load(executor, "customers", Query.LOAD_CUSTOMERS, RowMappers.CUSTOMER, ds.getAllCustomers()::addAll),
+                load(executor, "appointments", Query.LOAD_APPOINTMENTS, RowMappers.APPOINTMENT, ds.getAllAppointments()::addAll),
+                load(executor, "contacts", Query.LOAD_CONTACTS, RowMappers.CONTACT, ds.getAllContacts()::addAll),
+                load(executor, "users", Query.USER_NAMES, RowMappers.USER, ds.getAllUsers()::addAll),
+                load(executor, "divisions", Query.LOAD_GEOGRAPHY, RowMappers.DIVISION, this::addDivisions));
+        loaded.whenComplete((result, error) -> executor.shutdown());
+        return loaded;
+    }
+
+    /**
+     * Starts loading only country/division data, for starts restored from a snapshot, which does not keep it
+     * @return Completes once countries and divisions have been added, or exceptionally if reading has failed
+     */
+    public CompletableFuture<Void> startGeography() {
+        ExecutorService executor = newExecutor(1);
+        CompletableFuture<Void> loaded = load(executor, "divisions", Query.LOAD_GEOGRAPHY, RowMappers.DIVISION, this::addDivisions);
+        loaded.whenComplete((result, error) -> executor.shutdown());
+        return loaded;
+    }
+
+    /**
+     * Creates background threads to read tables on
+     * @param threads Number of threads
+     * @return Executor of daemon threads
+     */
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "data-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads one table in the background and hands its records to the JavaFX thread in batches as they arrive
+     * @param executor Background threads to read on
+     * @param table Table name for load timings
+     * @param query Named query that reads the table
+     * @param mappers Creates a row mapper for the query results
+     * @param apply Adds a batch of records to the data store
+     * @param <T> Record type
+     * @return Completes once all records have been added, or exceptionally if reading has failed
+     */
+    private <T> CompletableFuture<Void> load(ExecutorService executor, String table, Query query, RowMapperFactory<T> mappers, Consumer<List<T>> apply) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        executor.execute(() -> {
+            long loadStart = System.nanoTime();
+            List<T> batch = new ArrayList<>();
+            Exception failure = null;
+            try (Connection conn = DBConnect.getConn();
+                 ResultSet rs = DBQuery.executeQuery(conn, query)) {
+                RowMapper<T> mapper = mappers.bind(rs);
+                while (rs.next()) {
+                    batch.add(mapper.map(rs));
+                    if (batch.size() == BATCH_ROWS) {
+                        List<T> full = batch;
+                        Platform.runLater(() -> apply.accept(full));
+                        batch = new ArrayList<>();
+                    }
+                }
+            } catch(Exception e) {
+                e.printStackTrace();
+                failure = e;
+            }
+            long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+            List<T> last = batch;
+            Exception failed = failure;
+            Platform.runLater(() -> {
+                // a table that could not be read must not look like an empty one
+                if (failed != null) {
+                    done.completeExceptionally(failed);
+                    return;
+                }
+                try {
+                    apply.accept(last);
+                    ds.addLoadTime(table, loadMillis);
+                    done.complete(null);
+                } catch (RuntimeException e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        });
+        return done;
+    }
+
+    /**
+     * Adds countries and divisions to the data store
+     * @param rows Country/division rows
+     */
+    private void addDivisions(List<Consumer<Geography>> rows) {
+        for (Consumer<Geography> row : rows) {
+            row.accept(ds.getGeography());
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package Main;
+
+import Model.*;
+import javafx.application.Platform;
+import utils.DBConnect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the data store to a local binary file and restores it on the next start,
+ * so the application can open without reading every table from the database.
+ * The file starts with a magic number, format version, payload length, and CRC32
+ * of the payload. A file that is missing, from another format version, truncated,
+ * or corrupt is ignored and the caller falls back to a full load.
+ * Countries and divisions are not saved, since delta sync never refreshes them;
+ * they are read from the database on every start.
+ */
+public class DataSnapshot {
+    /**
+     * Logger for snapshot files that are ignored
+     */
+    private static final Logger LOGGER = Logger.getLogger(DataSnapshot.class.getName());
+    /**
+     * Identifies a snapshot file
+     */
+    private static final int MAGIC = 0x43313935;
+    /**
+     * Format version, bumped whenever the payload layout changes
+     */
+    private static final int VERSION = 2;
+    /**
+     * Bytes before the payload: magic, version, payload length, and CRC32
+     */
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+    /**
+     * Minutes between periodic saves
+     */
+    private static final long SAVE_MINUTES = 5;
+    /**
+     * Longest time in seconds to wait for a periodic save to stop before the final save
+     */
+    private static final long STOP_SECONDS = 10;
+    /**
+     * Marks a missing string
+     */
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Local data store where session data is saved
+     */
+    private final DataStore ds;
+    /**
+     * Snapshot file
+     */
+    private final Path file;
+    /**
+     * Background thread that writes periodic saves
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "data-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates snapshot of a data store
+     * @param ds Local data store where session data is saved
+     * @param file Snapshot file
+     */
+    public DataSnapshot(DataStore ds, Path file) {
+        this.ds = ds;
+        this.file = file;
+    }
+
+    /**
+     * Fills the data store from the snapshot file.
+     * Nothing is added unless the whole file is valid.
+     * @return True if the data store was restored, false if a full load is needed
+     */
+    public boolean restore() {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        long restoreStart = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                LOGGER.log(Level.INFO, "Ignoring snapshot {0}: too large", file);
+                return false;
+            }
+            // read into the heap rather than mapping, so the file is not held open for the next save to replace
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                LOGGER.log(Level.INFO, "Ignoring snapshot {0}: unknown format", file);
+                return false;
+            }
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length != buffer.remaining()) {
+                LOGGER.log(Level.INFO, "Ignoring snapshot {0}: truncated", file);
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                LOGGER.log(Level.INFO, "Ignoring snapshot {0}: checksum mismatch", file);
+                return false;
+            }
+            readPayload(buffer);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.INFO, "Ignoring snapshot " + file, e);
+            return false;
+        }
+        ds.addLoadTime("snapshot", (System.nanoTime() - restoreStart) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Saves the data store every few minutes once startup data has loaded, skipping any save
+     * while the write-behind queue has writes that have not finished
+     */
+    public void startPeriodicSave() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                // copy the lists on the JavaFX thread, where local edits are made, then encode and write in the background
+                Contents contents = CompletableFuture.supplyAsync(() -> DBConnect.getWriteQueue().isIdle() ? new Contents(ds) : null, Platform::runLater).get();
+                if (contents == null) {
+                    // local data holds edits the database may not have, which delta sync would never correct
+                    LOGGER.log(Level.FINE, "Skipping periodic snapshot: writes are still queued");
+                    return;
+                }
+                write(contents);
+            } catch (InterruptedException | ClosedByInterruptException e) {
+                // stopped while saving; the final save replaces the partial file
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, SAVE_MINUTES, SAVE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops periodic saves, waiting for one already running, and saves the data store one last time,
+     * if startup data finished loading.
+     * Must be called on the JavaFX thread, after queued writes have been sent.
+     * @param save Whether to save; false when some writes may not have reached the database,
+     *             so local data may hold changes the database does not
+     */
+    public void stop(boolean save) {
+        executor.shutdownNow();
+        try {
+            // a periodic save still writing would race the final save on the same temporary file
+            if (!executor.awaitTermination(STOP_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.INFO, "Not saving snapshot: periodic save did not stop");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (save && ds.whenDataLoaded().isDone() && !ds.whenDataLoaded().isCompletedExceptionally()) {
+            try {
+                write(new Contents(ds));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Encodes data store contents and replaces the snapshot file with them
+     * @param contents Copy of the data store contents
+     * @throws IOException Fails to write snapshot file
+     */
+    private void write(Contents contents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writePayload(out, contents);
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(payload.length).putLong(crc.getValue()).flip();
+        // write beside the old snapshot and swap it in, so a crash mid-write leaves the old one intact
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = { header, ByteBuffer.wrap(payload) };
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encodes watermarks, users, contacts, customers, and appointments
+     * @param out Payload output
+     * @param contents Copy of the data store contents
+     * @throws IOException Fails to write payload
+     */
+    private static void writePayload(DataOutputStream out, Contents contents) throws IOException {
+        writeTimestamp(out, contents.appointmentWatermark);
+        writeTimestamp(out, contents.customerWatermark);
+        writeTimestamp(out, contents.userWatermark);
+        out.writeInt(contents.users.size());
+        for (User user : contents.users) {
+            out.writeInt(user.getId());
+            writeString(out, user.getName());
+        }
+        out.writeInt(contents.contacts.size());
+        for (Contact contact : contents.contacts) {
+            out.writeInt(contact.getId());
+            writeString(out, contact.getName());
+            writeString(out, contact.getEmail());
+        }
+        out.writeInt(contents.customers.size());
+        for (Customer customer : contents.customers) {
+            out.writeInt(customer.getCustomerId());
+            writeString(out, customer.getCustomerName());
+            writeString(out, customer.getAddress());
+            writeString(out, customer.getPostalCode());
+            writeString(out, customer.getPhone());
+            writeDate(out, customer.getCreateDate());
+            writeString(out, customer.getCreatedBy());
+            writeTimestamp(out, customer.getLastUpdate());
+            writeString(out, customer.getLastUpdatedBy());
+            writeString(out, customer.getDivision());
+            writeString(out, customer.getCountry());
+        }
+        out.writeInt(contents.appointments.size());
+        for (Appointment appointment : contents.appointments) {
+            out.writeInt(appointment.getAppointmentId());
+            writeString(out, appointment.getTitle());
+            writeString(out, appointment.getDescription());
+            writeString(out, appointment.getLocation());
+            writeString(out, appointment.getType());
+            out.writeInt(appointment.getContactId());
+            writeTimestamp(out, appointment.getStart());
+            writeTimestamp(out, appointment.getEnd());
+            writeTimestamp(out, appointment.getLocalStart());
+            writeTimestamp(out, appointment.getLocalEnd());
+            writeTimestamp(out, appointment.getCreateDate());
+            writeString(out, appointment.getCreatedBy());
+            writeTimestamp(out, appointment.getLastUpdate());
+            writeString(out, appointment.getLastUpdatedBy());
+            out.writeInt(appointment.getCustomerId());
+            out.writeInt(appointment.getUserId());
+        }
+    }
+
+    /**
+     * Decodes the payload written by writePayload and adds it to the data store
+     * @param in Payload positioned after the header
+     */
+    private void readPayload(ByteBuffer in) {
+        Timestamp appointmentWatermark = readTimestamp(in);
+        Timestamp customerWatermark = readTimestamp(in);
+        Timestamp userWatermark = readTimestamp(in);
+        List<User> users = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            users.add(new User(in.getInt(), readString(in)));
+        }
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            contacts.add(new Contact(in.getInt(), readString(in), readString(in)));
+        }
+        List<Customer> customers = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            customers.add(new Customer(in.getInt(), readString(in), readString(in), readString(in), readString(in), readDate(in),
+                    readString(in), readTimestamp(in), readString(in), readString(in), readString(in)));
+        }
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            int id = in.getInt();
+            String title = readString(in);
+            String description = readString(in);
+            String location = readString(in);
+            String type = readString(in);
+            int contactId = in.getInt();
+            Timestamp start = readTimestamp(in);
+            Timestamp end = readTimestamp(in);
+            Timestamp localStart = readTimestamp(in);
+            Timestamp localEnd = readTimestamp(in);
+            Timestamp createDate = readTimestamp(in);
+            String createdBy = readString(in);
+            Timestamp lastUpdate = readTimestamp(in);
+            String lastUpdatedBy = readString(in);
+            int customerId = in.getInt();
+            int userId = in.getInt();
+            Appointment appointment = new Appointment(id, title, description, location, type, contactId, start, end, createDate, createdBy, lastUpdate, lastUpdatedBy, customerId, userId);
+            // appointments read from the database keep the same start and local start
+            if (!localStart.equals(start)) {
+                appointment.setLocalStart(localStart);
+            }
+            if (!localEnd.equals(end)) {
+                appointment.setLocalEnd(localEnd);
+            }
+            appointments.add(appointment);
+        }
+        if (in.hasRemaining()) {
+            throw new IllegalStateException("unexpected data after appointments");
+        }
+        // whole file decoded, so it is safe to fill the data store
+        ds.getAllUsers().addAll(users);
+        ds.getAllContacts().addAll(contacts);
+        ds.getAllCustomers().addAll(customers);
+        ds.getAllAppointments().addAll(appointments);
+        ds.setWatermark("appointments", appointmentWatermark);
+        ds.setWatermark("customers", customerWatermark);
+        ds.setWatermark("users", userWatermark);
+    }
+
+    /**
+     * Writes a string as its UTF-8 byte length followed by its bytes
+     * @param out Payload output
+     * @param value String, or null
+     * @throws IOException Fails to write string
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Reads a string written by writeString
+     * @param in Payload input
+     * @return String, or null
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a timestamp as epoch milliseconds, with a presence flag
+     * @param out Payload output
+     * @param value Timestamp, or null
+     * @throws IOException Fails to write timestamp
+     */
+    private static void writeTimestamp(DataOutputStream out, Timestamp value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    /**
+     * Reads a timestamp written by writeTimestamp
+     * @param in Payload input
+     * @return Timestamp, or null
+     */
+    private static Timestamp readTimestamp(ByteBuffer in) {
+        return in.get() == 0 ? null : new Timestamp(in.getLong());
+    }
+
+    /**
+     * Writes a date as epoch milliseconds, with a presence flag
+     * @param out Payload output
+     * @param value Date, or null
+     * @throws IOException Fails to write date
+     */
+    private static void writeDate(DataOutputStream out, Date value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    /**
+     * Reads a date written by writeDate
+     * @param in Payload input
+     * @return Date, or null
+     */
+    private static Date readDate(ByteBuffer in) {
+        return in.get() == 0 ? null : new java.sql.Date(in.getLong());
+    }
+
+    /**
+     * Copy of the data store lists and watermarks, taken on the JavaFX thread
+     * so it can be encoded on another thread
+     */
+    private static class Contents {
+        /**
+         * Newest appointment Last_Update merged
+         */
+        private final Timestamp appointmentWatermark;
+        /**
+         * Newest customer Last_Update merged
+         */
+        private final Timestamp customerWatermark;
+        /**
+         * Newest user Last_Update merged
+         */
+        private final Timestamp userWatermark;
+        /**
+         * All users
+         */
+        private final List<User> users;
+        /**
+         * All contacts
+         */
+        private final List<Contact> contacts;
+        /**
+         * All customers
+         */
+        private final List<Customer> customers;
+        /**
+         * All appointments
+         */
+        private final List<Appointment> appointments;
+
+        /**
+         * Copies data store contents
+         * @param ds Local data store where session data is saved
+         */
+        Contents(DataStore ds) {
+            appointmentWatermark = ds.getWatermark("appointments");
+            customerWatermark = ds.getWatermark("customers");
+            userWatermark = ds.getWatermark("users");
+            users = new ArrayList<>(ds.getAllUsers());
+            contacts = new ArrayList<>(ds.getAllContacts());
+            customers = new ArrayList<>(ds.getAllCustomers());
+            appointments = new ArrayList<>(ds.getAllAppointments());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package Main;
+
+import Model.*;
+import javafx.application.Platform;
+import utils.DBConnect;
+import utils.DBQuery;
+import utils.Query;
+import utils.RowMapper;
+import utils.RowMapperFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps the data store up to date with changes made by other schedulers.
+ * Every poll reads only the appointments, customers, and users whose Last_Update
+ * is at or after the newest one seen so far, and merges them into the data store.
+ * Every few polls the IDs in each table are compared with the local records to
+ * drop rows deleted elsewhere. Contacts have no Last_Update column, so they are
+ * re-read in full on those reconciliation polls instead.
+ * Rows with local edits still waiting in the write-behind queue are skipped,
+ * so a poll never undoes a change that has not reached the database yet.
+ */
+public class DeltaSyncService {
+    /**
+     * Seconds between polls for changed rows
+     */
+    private static final long POLL_SECONDS = 30;
+    /**
+     * Number of polls between checks for deleted rows
+     */
+    private static final int RECONCILE_EVERY = 10;
+
+    /**
+     * Local data store where session data is saved
+     */
+    private final DataStore ds;
+    /**
+     * Background thread that polls the database
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "delta-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Number of polls run
+     */
+    private long pollCount;
+
+    /**
+     * Creates delta sync service
+     * @param ds Local data store where session data is saved
+     */
+    public DeltaSyncService(DataStore ds) {
+        this.ds = ds;
+    }
+
+    /**
+     * Starts polling once startup data has loaded, beginning from the newest changes already loaded.
+     * The first poll runs straight away and also checks for deleted rows, so data restored
+     * from a snapshot catches up with the database quickly.
+     * User records do not keep their Last_Update, so without a saved watermark the first poll reads all users once.
+     */
+    public void start() {
+        ds.whenDataLoaded().thenRunAsync(() -> {
+            ds.setWatermark("appointments", newest(ds.getWatermark("appointments"), ds.getAllAppointments(), Appointment::getLastUpdate));
+            ds.setWatermark("customers", newest(ds.getWatermark("customers"), ds.getAllCustomers(), Customer::getLastUpdate));
+            executor.scheduleWithFixedDelay(this::poll, 0, POLL_SECONDS, TimeUnit.SECONDS);
+        }, Platform::runLater);
+    }
+
+    /**
+     * Stops polling
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Merges changed rows, and every few polls removes deleted ones and refreshes contacts
+     */
+    private void poll() {
+        try (Connection conn = DBConnect.getConn()) {
+            readChanges(conn, "appointments", Query.APPOINTMENTS_CHANGED_SINCE, RowMappers.APPOINTMENT, Appointment::getAppointmentId, ds::mergeAppointments);
+            readChanges(conn, "customers", Query.CUSTOMERS_CHANGED_SINCE, RowMappers.CUSTOMER, Customer::getCustomerId, ds::mergeCustomers);
+            readChanges(conn, "users", Query.USERS_CHANGED_SINCE, RowMappers.USER, User::getId, ds::mergeUsers);
+            if (pollCount++ % RECONCILE_EVERY == 0) {
+                reconcile(conn, "appointments", Query.APPOINTMENT_IDS, ds::getAppointmentIds, ds::reconcileAppointments);
+                reconcile(conn, "customers", Query.CUSTOMER_IDS, ds::getCustomerIds, ds::reconcileCustomers);
+                reconcile(conn, "users", Query.USER_IDS, ds::getUserIds, ds::reconcileUsers);
+                refreshContacts(conn);
+            }
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads rows changed at or after a table's watermark and hands them to the JavaFX thread
+     * to merge, moving the watermark up to the newest Last_Update read
+     * @param conn Connection borrowed from the connection pool
+     * @param table Table name the watermark is kept under
+     * @param query Named query selecting rows changed at or after a time
+     * @param mappers Creates a row mapper for the query results
+     * @param id Gets ID of a record
+     * @param merge Merges records into the data store
+     * @param <T> Record type
+     * @throws SQLException Fails to read changed rows
+     */
+    private <T> void readChanges(Connection conn, String table, Query query, RowMapperFactory<T> mappers, ToIntFunction<T> id, Consumer<List<T>> merge) throws SQLException {
+        // rows with writes pending when the read starts may be read before those writes land
+        Set<Integer> pendingAtRead = DBConnect.getWriteQueue().getPendingIds(table);
+        List<T> changed = new ArrayList<>();
+        Timestamp watermark = ds.getWatermark(table);
+        Timestamp newest = watermark;
+        try (ResultSet rs = DBQuery.executeQuery(conn, query, watermark)) {
+            RowMapper<T> mapper = mappers.bind(rs);
+            int lastUpdateColumn = rs.findColumn("Last_Update");
+            while (rs.next()) {
+                changed.add(mapper.map(rs));
+                Timestamp lastUpdate = rs.getTimestamp(lastUpdateColumn);
+                if (lastUpdate != null && lastUpdate.after(newest)) {
+                    newest = lastUpdate;
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            // move the watermark together with the merge so a snapshot never has one without the other
+            Timestamp merged = newest;
+            Platform.runLater(() -> {
+                Set<Integer> pending = DBConnect.getWriteQueue().getPendingIds(table);
+                changed.removeIf(record -> pendingAtRead.contains(id.applyAsInt(record)) || pending.contains(id.applyAsInt(record)));
+                merge.accept(changed);
+                ds.setWatermark(table, merged);
+            });
+        }
+    }
+
+    /**
+     * Re-reads all contacts, merging changes and removing contacts deleted from the database
+     * @param conn Connection borrowed from the connection pool
+     * @throws SQLException Fails to read contacts
+     */
+    private void refreshContacts(Connection conn) throws SQLException {
+        // snapshot local IDs first so contacts added locally while contacts are read are not removed
+        Set<Integer> known = CompletableFuture.supplyAsync(ds::getContactIds, Platform::runLater).join();
+        known.removeAll(DBConnect.getWriteQueue().getPendingIds("contacts"));
+        List<Contact> contacts = new ArrayList<>();
+        Set<Integer> existing = new HashSet<>();
+        try (ResultSet rs = DBQuery.executeQuery(conn, Query.LOAD_CONTACTS)) {
+            RowMapper<Contact> mapper = RowMappers.CONTACT.bind(rs);
+            while (rs.next()) {
+                Contact contact = mapper.map(rs);
+                contacts.add(contact);
+                existing.add(contact.getId());
+            }
+        }
+        Platform.runLater(() -> {
+            Set<Integer> pending = DBConnect.getWriteQueue().getPendingIds("contacts");
+            contacts.removeIf(contact -> pending.contains(contact.getId()));
+            known.removeAll(pending);
+            ds.mergeContacts(contacts);
+            ds.reconcileContacts(known, existing);
+        });
+    }
+
+    /**
+     * Reads the IDs in a table and removes local records whose rows were deleted
+     * @param conn Connection borrowed from the connection pool
+     * @param table Table name pending writes are kept under
+     * @param query Named query selecting all IDs of a table
+     * @param localIds Gets IDs held locally
+     * @param remove Removes local records missing from the database
+     * @throws SQLException Fails to read IDs
+     */
+    private void reconcile(Connection conn, String table, Query query, Supplier<Set<Integer>> localIds, BiConsumer<Set<Integer>, Set<Integer>> remove) throws SQLException {
+        // snapshot local IDs first so records added locally while the IDs are read are not removed
+        Set<Integer> known = CompletableFuture.supplyAsync(localIds, Platform::runLater).join();
+        known.removeAll(DBConnect.getWriteQueue().getPendingIds(table));
+        Set<Integer> existing = new HashSet<>();
+        try (ResultSet rs = DBQuery.executeQuery(conn, query)) {
+            while (rs.next()) {
+                existing.add(rs.getInt(1));
+            }
+        }
+        Platform.runLater(() -> {
+            known.removeAll(DBConnect.getWriteQueue().getPendingIds(table));
+            remove.accept(known, existing);
+        });
+    }
+
+    /**
+     * Finds newest Last_Update among records
+     * @param watermark Newest Last_Update already known
+     * @param records Records to search
+     * @param lastUpdate Gets Last_Update of a record
+     * @param <T> Record type
+     * @return Newest of the known Last_Update and those of the records
+     */
+    private static <T> Timestamp newest(Timestamp watermark, List<T> records, Function<T, Timestamp> lastUpdate) {
+        Timestamp newest = watermark;
+        for (T record : records) {
+            Timestamp updated = lastUpdate.apply(record);
+            if (updated != null && updated.after(newest)) {
+                newest = updated;
+            }
+        }
+        return newest;
+    }
+}
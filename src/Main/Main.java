@@ -1,26 +1,43 @@
 package Main;
 import Model.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Alert;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import utils.DBConnect;
+import utils.DBQuery;
 
-import java.sql.*;
-import java.util.Date;
+import java.nio.file.Paths;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Initializes application, loading text localization files, startup data, and
  * initial screen
  */
 public class Main extends Application {
+    /**
+     * Logger for startup timings and shutdown statistics
+     */
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    /**
+     * Merges changes made by other schedulers into local data
+     */
+    private DeltaSyncService deltaSync;
+    /**
+     * Saves local data to disk for the next start
+     */
+    private DataSnapshot snapshot;
+
     /**
      * Load resource bundle for localization
-     * Fetches application data from DB and saves local copy
-     * Initializes application on login screen
+     * Restores application data saved by the last run, or starts fetching it from DB in the background to save a local copy
+     * Initializes application on login screen without waiting for the data
      * @param primaryStage Initial stage of application
      * @throws Exception Fails to load appropriate text localization resource bundle
      * for user's system setting
@@ -28,12 +45,33 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
         DataStore ds = new DataStore();
-        loadData(ds);
+        // restore local data saved by the last run, or read it all from the database
+        snapshot = new DataSnapshot(ds, Paths.get("datastore.snapshot"));
+        if (!snapshot.restore()) {
+            ds.setDataLoaded(new DataLoader(ds).start());
+        } else {
+            // countries and divisions are not kept in the snapshot
+            new DataLoader(ds).startGeography();
+        }
+        ds.whenDataLoaded().thenRun(snapshot::startPeriodicSave);
+        // log startup cost of each table once everything has loaded
+        ds.whenDataLoaded().thenRunAsync(() -> LOGGER.log(Level.FINE, "Startup load times (ms): {0}", ds.getLoadTimes()), Platform::runLater);
+        // keep local data up to date with changes made by other schedulers
+        deltaSync = new DeltaSyncService(ds);
+        deltaSync.start();
         // Load resource bundle for localization
         try {
             ResourceBundle rb = ResourceBundle.getBundle("language_files/rb");
             Locale locale = Locale.getDefault();
             ds.updateLocale(locale);
+            // tell the user about changes that could not be saved and were undone
+            DBConnect.getWriteQueue().setFailureHandler(failed -> {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle(rb.getString("error"));
+                alert.setHeaderText(rb.getString("save_failed_title"));
+                alert.setContentText(rb.getString("save_failed_message") + "\n" + String.join("\n", failed));
+                alert.showAndWait();
+            });
         } catch(Exception e) {
             e.printStackTrace();
         }
@@ -48,71 +86,21 @@ public class Main extends Application {
     }
 
     /**
-     * Fetches appointment, customer, contact data from WGU database
-     * @param ds Local data store where session data is saved
-     * @throws SQLException Fails to fetch customer/appointment/contact information from database
+     * Stops background sync, sends queued writes, returns pooled database connections, and saves local data to disk
+     * when the application exits
      */
-    void loadData(DataStore ds) throws SQLException {
-            try {
-                // load customer information from database
-                String sql = "SELECT c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Create_Date, c.Created_By, c.Last_Update, c.Last_Updated_By, c.Division_ID, d.Division, n.Country FROM customers c JOIN first_level_divisions d ON (c.Division_ID = d.Division_ID) JOIN countries n ON (d.COUNTRY_ID = n.Country_ID);";
-                try (var ps = DBConnect.getConn().prepareStatement(sql);
-                     ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        int id = rs.getInt("c.Customer_ID");
-                        String name = rs.getString("c.Customer_Name");
-                        String address = rs.getString("c.Address");
-                        String postal = rs.getString("c.Postal_Code");
-                        String phone = rs.getString("c.Phone");
-                        Date create_date = rs.getDate("c.Create_Date");
-                        String created_by = rs.getString("c.Created_By");
-                        Timestamp last_update = rs.getTimestamp("c.Last_Update");
-                        String last_updated_by = rs.getString("c.Last_Updated_By");
-                        String division = rs.getString("d.Division");
-                        String country = rs.getString("n.Country");
-                        Customer c1 = new Customer(id, name, address, postal, phone, create_date, created_by, last_update, last_updated_by, division, country);
-                        ds.addCustomer(c1);
-                    }
-                }
-                // load appointment information from database
-                String sql2 = "SELECT * FROM appointments a JOIN contacts c ON (a.Contact_ID = c.Contact_ID) JOIN customers m ON (a.Customer_ID = m.Customer_ID) JOIN users u ON (a.User_ID = u.User_ID);";
-                try (var ps = DBConnect.getConn().prepareStatement(sql2);
-                     ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        int id = rs.getInt("a.Appointment_ID");
-                        String title = rs.getString("a.Title");
-                        String description = rs.getString("a.Description");
-                        String location = rs.getString("a.Location");
-                        String type = rs.getString("a.Type");
-                        int contactId = rs.getInt("a.Contact_ID");
-                        Timestamp start = rs.getTimestamp("a.Start");
-                        Timestamp end = rs.getTimestamp("a.End");
-                        Timestamp create_date = rs.getTimestamp("a.Create_Date");
-                        String created_by = rs.getString("a.Created_By");
-                        Timestamp last_update = rs.getTimestamp("a.Last_Update");
-                        String last_updated_by = rs.getString("a.Last_Updated_By");
-                        int customerId = rs.getInt("a.Customer_ID");
-                        int userId = rs.getInt("a.User_ID");
-                        Appointment c1 = new Appointment(id, title, description, location, type, contactId, start, end, create_date, created_by, last_update, last_updated_by, customerId, userId);
-                        ds.addAppointment(c1);
-                    }
-                }
-                // load contact information from database
-                String sql3 = "SELECT * FROM contacts c;";
-                try (var ps = DBConnect.getConn().prepareStatement(sql3);
-                     ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        int id = rs.getInt("c.Contact_ID");
-                        String name = rs.getString("c.Contact_Name");
-                        String email = rs.getString("c.Email");
-                        Contact c1 = new Contact(id, name, email);
-                        ds.addContact(c1);
-                    }
-                }
-
-            } catch(Exception e) {
-                e.printStackTrace();
-            }
+    @Override
+    public void stop() {
+        if (deltaSync != null) {
+            deltaSync.stop();
+        }
+        // send queued writes first, so the snapshot only holds changes the database has
+        boolean drained = DBConnect.close();
+        LOGGER.fine(DBConnect.getPool().toString());
+        LOGGER.fine(DBQuery.getStats());
+        if (snapshot != null) {
+            snapshot.stop(drained);
+        }
     }
 
     /**
@@ -0,0 +1,257 @@
+package Main;
+
+import Model.AppointmentTimeSeries;
+import Model.DataStore;
+import Model.Report;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import utils.DBConnect;
+import utils.DBQuery;
+import utils.Query;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the reports screen's count reports either from the counts kept in the data store or as
+ * GROUP BY queries in the database, picking by the size of the appointments table, which is
+ * counted once per executor with COUNT(*) rather than taken from the data store.
+ * Large histories are counted by the database, which sends back one row per group instead of
+ * every appointment. Both ways return the same rows: types and locations grouped by exact name
+ * and sorted by name, and months earliest first labelled with month and year.
+ * Start times are stored as wall time in the database session's time zone, which need not be the
+ * application's zone, so months are not grouped in SQL. The database counts appointments per
+ * quarter hour in UTC instead, and each quarter hour is added to the local month it starts in.
+ * Every time zone offset is a whole number of quarter hours, so no quarter hour spans two local
+ * months and both ways give the same months.
+ */
+public class ReportExecutor {
+    /**
+     * Appointment count at which reports are run in the database by default
+     */
+    public static final int DEFAULT_PUSH_DOWN_ROWS = 100_000;
+    /**
+     * Seconds in each bucket counted by the month query; must match the divisor in REPORT_BY_QUARTER_HOUR
+     */
+    private static final long BUCKET_SECONDS = 900;
+    /**
+     * Orders type and location rows by name, blank names first
+     */
+    private static final Comparator<Report> BY_ATTRIBUTE = Comparator.comparing(report -> report.getAttribute().getValue(), Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Background thread that runs database reports
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "report-executor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Local data store where session data is saved
+     */
+    private final DataStore ds;
+    /**
+     * Appointment count at which reports are run in the database
+     */
+    private final int pushDownRows;
+    /**
+     * Rows in the appointments table, or -1 until counted; only used on the background thread
+     */
+    private long historySize = -1;
+
+    /**
+     * Creates report executor using the default threshold
+     * @param ds Local data store where session data is saved
+     */
+    public ReportExecutor(DataStore ds) {
+        this(ds, DEFAULT_PUSH_DOWN_ROWS);
+    }
+
+    /**
+     * Creates report executor
+     * @param ds Local data store where session data is saved
+     * @param pushDownRows Appointment count at which reports are run in the database
+     */
+    public ReportExecutor(DataStore ds, int pushDownRows) {
+        this.ds = ds;
+        this.pushDownRows = pushDownRows;
+    }
+
+    /**
+     * Counts appointments by type
+     * @return Completes on the JavaFX thread with a report row for each type, sorted by name
+     */
+    public CompletableFuture<ObservableList<Report>> typeReport() {
+        return run(() -> sorted(ds.getReportAggregator().getTypeReport()), () -> queryGroups(Query.REPORT_BY_TYPE));
+    }
+
+    /**
+     * Counts appointments by location
+     * @return Completes on the JavaFX thread with a report row for each location, sorted by name
+     */
+    public CompletableFuture<ObservableList<Report>> locationReport() {
+        return run(() -> sorted(ds.getReportAggregator().getLocationReport()), () -> queryGroups(Query.REPORT_BY_LOCATION));
+    }
+
+    /**
+     * Counts appointments by month of each year
+     * @param locale Locale month names are shown in
+     * @return Completes on the JavaFX thread with a report row for each month with appointments, earliest first
+     */
+    public CompletableFuture<ObservableList<Report>> monthReport(Locale locale) {
+        return run(() -> ds.getTimeSeries().getMonthReport(locale), () -> queryMonths(locale));
+    }
+
+    /**
+     * Runs a report in the database when the appointments table is large, or in memory otherwise.
+     * The table size is checked on the background thread. If the database cannot be reached the
+     * report is run in memory instead.
+     * @param inMemory Reads report from data store counts; called on the JavaFX thread
+     * @param pushDown Runs report in the database; called on the background thread
+     * @return Completes on the JavaFX thread with report rows
+     */
+    private CompletableFuture<ObservableList<Report>> run(Supplier<ObservableList<Report>> inMemory, SqlSupplier pushDown) {
+        CompletableFuture<ObservableList<Report>> done = new CompletableFuture<>();
+        executor.execute(() -> {
+            ObservableList<Report> pushed = null;
+            try {
+                if (historySize() >= pushDownRows) {
+                    pushed = pushDown.get();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                if (historySize < 0) {
+                    // the table could not be counted, so later reports go straight to memory
+                    historySize = 0;
+                }
+            }
+            ObservableList<Report> reports = pushed;
+            Platform.runLater(() -> done.complete(reports != null ? reports : inMemory.get()));
+        });
+        return done;
+    }
+
+    /**
+     * Gets number of rows in the appointments table, counting them on first use
+     * @return Appointment count
+     * @throws SQLException Fails to count appointments
+     */
+    private long historySize() throws SQLException {
+        if (historySize < 0) {
+            try (Connection conn = DBConnect.getConn();
+                 ResultSet rs = DBQuery.executeQuery(conn, Query.APPOINTMENT_COUNT)) {
+                historySize = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        return historySize;
+    }
+
+    /**
+     * Runs a GROUP BY query returning a name and count per row
+     * @param query Named query with name in column 1 and count in column 2
+     * @return Report row for each group, sorted by name
+     * @throws SQLException Fails to run query
+     */
+    private static ObservableList<Report> queryGroups(Query query) throws SQLException {
+        ObservableList<Report> reports = FXCollections.observableArrayList();
+        try (Connection conn = DBConnect.getConn();
+             ResultSet rs = DBQuery.executeQuery(conn, query)) {
+            while (rs.next()) {
+                reports.add(report(rs.getString(1), rs.getInt(2)));
+            }
+        }
+        return sorted(reports);
+    }
+
+    /**
+     * Runs the quarter hour GROUP BY query and adds each quarter hour to its local month
+     * @param locale Locale month names are shown in
+     * @return Report row for each month with appointments, earliest first
+     * @throws SQLException Fails to run query
+     */
+    private static ObservableList<Report> queryMonths(Locale locale) throws SQLException {
+        Map<YearMonth, Integer> counts = new TreeMap<>();
+        ZoneId zone = ZoneId.systemDefault();
+        try (Connection conn = DBConnect.getConn();
+             ResultSet rs = DBQuery.executeQuery(conn, Query.REPORT_BY_QUARTER_HOUR)) {
+            while (rs.next()) {
+                addToMonth(counts, rs.getLong(1), rs.getInt(2), zone);
+            }
+        }
+        return monthRows(counts, locale);
+    }
+
+    /**
+     * Adds the count of one quarter hour to the local month it starts in
+     * @param counts Appointment count of each month
+     * @param bucket Quarter hours since the epoch
+     * @param count Appointments starting in the quarter hour
+     * @param zone Zone months are local to
+     */
+    static void addToMonth(Map<YearMonth, Integer> counts, long bucket, int count, ZoneId zone) {
+        YearMonth month = YearMonth.from(Instant.ofEpochSecond(bucket * BUCKET_SECONDS).atZone(zone));
+        counts.merge(month, count, Integer::sum);
+    }
+
+    /**
+     * Creates month report rows
+     * @param counts Appointment count of each month, earliest first
+     * @param locale Locale month names are shown in
+     * @return Report row for each month
+     */
+    static ObservableList<Report> monthRows(Map<YearMonth, Integer> counts, Locale locale) {
+        ObservableList<Report> reports = FXCollections.observableArrayList();
+        counts.forEach((month, count) -> reports.add(report(AppointmentTimeSeries.monthLabel(month, locale), count)));
+        return reports;
+    }
+
+    /**
+     * Creates a report row
+     * @param attribute Group name
+     * @param count Appointment count
+     * @return Report row
+     */
+    private static Report report(String attribute, int count) {
+        return new Report(new ReadOnlyObjectWrapper<>(count), new ReadOnlyStringWrapper(attribute));
+    }
+
+    /**
+     * Sorts report rows by name
+     * @param reports Report rows
+     * @return The same list, sorted
+     */
+    private static ObservableList<Report> sorted(ObservableList<Report> reports) {
+        FXCollections.sort(reports, BY_ATTRIBUTE);
+        return reports;
+    }
+
+    /**
+     * Supplies report rows from the database
+     */
+    @FunctionalInterface
+    private interface SqlSupplier {
+        /**
+         * Runs the report
+         * @return Report rows
+         * @throws SQLException Fails to run query
+         */
+        ObservableList<Report> get() throws SQLException;
+    }
+}
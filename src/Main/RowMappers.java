@@ -0,0 +1,99 @@
+package Main;
+
+import Model.*;
+import utils.RowMapperFactory;
+
+import java.util.function.Consumer;
+
+/**
+ * Row mappers for the startup and sync queries.
+ * Each one looks up the positions of the columns it needs once per query result.
+ */
+final class RowMappers {
+    /**
+     * Builds appointments from appointment columns
+     */
+    static final RowMapperFactory<Appointment> APPOINTMENT = rs -> {
+        int id = rs.findColumn("Appointment_ID");
+        int title = rs.findColumn("Title");
+        int description = rs.findColumn("Description");
+        int location = rs.findColumn("Location");
+        int type = rs.findColumn("Type");
+        int contactId = rs.findColumn("Contact_ID");
+        int start = rs.findColumn("Start");
+        int end = rs.findColumn("End");
+        int createDate = rs.findColumn("Create_Date");
+        int createdBy = rs.findColumn("Created_By");
+        int lastUpdate = rs.findColumn("Last_Update");
+        int lastUpdatedBy = rs.findColumn("Last_Updated_By");
+        int customerId = rs.findColumn("Customer_ID");
+        int userId = rs.findColumn("User_ID");
+        return row -> new Appointment(row.getInt(id), row.getString(title), row.getString(description), row.getString(location),
+                row.getString(type), row.getInt(contactId), row.getTimestamp(start), row.getTimestamp(end), row.getTimestamp(createDate),
+                row.getString(createdBy), row.getTimestamp(lastUpdate), row.getString(lastUpdatedBy), row.getInt(customerId), row.getInt(userId));
+    };
+
+    /**
+     * Builds customers from customer columns joined with division and country names
+     */
+    static final RowMapperFactory<Customer> CUSTOMER = rs -> {
+        int id = rs.findColumn("Customer_ID");
+        int name = rs.findColumn("Customer_Name");
+        int address = rs.findColumn("Address");
+        int postal = rs.findColumn("Postal_Code");
+        int phone = rs.findColumn("Phone");
+        int createDate = rs.findColumn("Create_Date");
+        int createdBy = rs.findColumn("Created_By");
+        int lastUpdate = rs.findColumn("Last_Update");
+        int lastUpdatedBy = rs.findColumn("Last_Updated_By");
+        int division = rs.findColumn("Division");
+        int country = rs.findColumn("Country");
+        return row -> new Customer(row.getInt(id), row.getString(name), row.getString(address), row.getString(postal),
+                row.getString(phone), row.getDate(createDate), row.getString(createdBy), row.getTimestamp(lastUpdate),
+                row.getString(lastUpdatedBy), row.getString(division), row.getString(country));
+    };
+
+    /**
+     * Builds contacts from contact columns
+     */
+    static final RowMapperFactory<Contact> CONTACT = rs -> {
+        int id = rs.findColumn("Contact_ID");
+        int name = rs.findColumn("Contact_Name");
+        int email = rs.findColumn("Email");
+        return row -> new Contact(row.getInt(id), row.getString(name), row.getString(email));
+    };
+
+    /**
+     * Builds users from user ID and name columns
+     */
+    static final RowMapperFactory<User> USER = rs -> {
+        int id = rs.findColumn("User_ID");
+        int name = rs.findColumn("User_Name");
+        return row -> new User(row.getInt(id), row.getString(name));
+    };
+
+    /**
+     * Reads country/division rows as steps that add the country, and its division
+     * if the row has one, to a country/division index
+     */
+    static final RowMapperFactory<Consumer<Geography>> DIVISION = rs -> {
+        int country = rs.findColumn("Country");
+        int divisionId = rs.findColumn("Division_ID");
+        int division = rs.findColumn("Division");
+        return row -> {
+            String countryName = row.getString(country);
+            int id = row.getInt(divisionId);
+            String divisionName = row.getString(division);
+            if (divisionName == null) {
+                return geography -> geography.addCountry(countryName);
+            }
+            return geography -> geography.addDivision(id, divisionName, countryName);
+        };
+    };
+
+    /**
+     * Not instantiated
+     */
+    private RowMappers() {
+    }
+}
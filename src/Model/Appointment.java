@@ -1,7 +1,8 @@
 package Model;
 
+import utils.DisplayTimes;
+
 import java.sql.Timestamp;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents an appointment within a consulting
@@ -22,17 +23,17 @@ public class Appointment {
      */
     private String description;
     /**
-     * Appointment location
+     * Symbol code of appointment location
      */
-    private String location;
+    private int location;
     /**
      * ID number of contact in appointment
      */
     private int contactId;
     /**
-     * Type of appointment
+     * Symbol code of type of appointment
      */
-    private String type;
+    private int type;
     /**
      * Appointment starting date/time in UTC timezone
      */
@@ -41,10 +42,6 @@ public class Appointment {
      * Appointment starting date/time in local timezone
      */
     private Timestamp localStart;
-    /**
-     * Appointment starting date/time in local timezone and 12-hour format
-     */
-    private String formattedLocalStart;
     /**
      * Appointment ending date/time in UTC timezone
      */
@@ -53,26 +50,22 @@ public class Appointment {
      * Appointment ending date/time in local timezone
      */
     private Timestamp localEnd;
-    /**
-     * Appointment ending date/time in local timezone and 12-hour format
-     */
-    private String formattedLocalEnd;
     /**
      * Date/time that appointment was created on
      */
     private Timestamp createDate;
     /**
-     * User that appointment was created by
+     * Symbol code of user that appointment was created by
      */
-    private String createdBy;
+    private int createdBy;
     /**
      * Date/time that appointment was last updated by
      */
     private Timestamp lastUpdate;
     /**
-     * User that appointment was last updated by
+     * Symbol code of user that appointment was last updated by
      */
-    private String lastUpdatedBy;
+    private int lastUpdatedBy;
     /**
      * Customer ID
      */
@@ -81,7 +74,6 @@ public class Appointment {
      * User ID
      */
     private int userId;
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss a");
     /**
      * Creates appointment object representing an appointment at the global
      * consulting agency between agency users and contacts/customers of that
@@ -112,9 +104,7 @@ public class Appointment {
         setStart(start);
         setEnd(end);
         setLocalStart(start);
-        setFormattedLocalStart(start);
         setLocalEnd(end);
-        setFormattedLocalEnd(end);
         setCreateDate(createDate);
         setCreatedBy(createdBy);
         setLastUpdate(lastUpdate);
@@ -123,6 +113,30 @@ public class Appointment {
         setUserId(userId);
     }
 
+    /**
+     * Creates a copy of an appointment, used to undo local edits
+     * @param other Appointment to copy
+     */
+    public Appointment(Appointment other) {
+        super();
+        appointmentId = other.appointmentId;
+        title = other.title;
+        description = other.description;
+        location = other.location;
+        contactId = other.contactId;
+        type = other.type;
+        start = other.start;
+        localStart = other.localStart;
+        end = other.end;
+        localEnd = other.localEnd;
+        createDate = other.createDate;
+        createdBy = other.createdBy;
+        lastUpdate = other.lastUpdate;
+        lastUpdatedBy = other.lastUpdatedBy;
+        customerId = other.customerId;
+        userId = other.userId;
+    }
+
     /**
      * Sets appointment ID
      * @param appointmentId Appointment ID
@@ -152,7 +166,7 @@ public class Appointment {
      * @param location Appointment office location
      */
     public void setLocation(String location) {
-        this.location = location;
+        this.location = SymbolTable.intern(location);
     }
 
     /**
@@ -160,7 +174,7 @@ public class Appointment {
      * @param type Type of appointment
      */
     public void setType(String type) {
-        this.type = type;
+        this.type = SymbolTable.intern(type);
     }
 
     /**
@@ -178,13 +192,6 @@ public class Appointment {
     public void setLocalStart(Timestamp localStart) {
         this.localStart = localStart;
     }
-    /**
-     * Sets the formatted local meeting start time in 12 hour, AM/PM format
-     * @param localStart Appointment starting time in local timezone and Timestamp format
-     */
-    public void setFormattedLocalStart(Timestamp localStart) {
-        this.formattedLocalStart = localStart.toLocalDateTime().format(formatter).toString();
-    }
 
     /**
      * Sets the appointment ending time in UTC timezone
@@ -202,14 +209,6 @@ public class Appointment {
         this.localEnd = localEnd;
     }
 
-    /**
-     * Sets the formatted local meeting end time in 12 hour, AM/PM format
-     * @param localEnd Appointment ending time in local timezone and Timestamp format
-     */
-    public void setFormattedLocalEnd(Timestamp localEnd) {
-        this.formattedLocalEnd = localEnd.toLocalDateTime().format(formatter).toString();
-    }
-
     /**
      * Get date/time that customer was created on
      * @param createDate Date/time that customer was created on
@@ -223,7 +222,7 @@ public class Appointment {
      * @param createdBy User that appointment was created by
      */
     public void setCreatedBy(String createdBy) {
-        this.createdBy = createdBy;
+        this.createdBy = SymbolTable.intern(createdBy);
     }
 
     /**
@@ -239,7 +238,7 @@ public class Appointment {
      * @param lastUpdatedBy User that appointment was last updated by
      */
     public void setLastUpdatedBy(String lastUpdatedBy) {
-        this.lastUpdatedBy = lastUpdatedBy;
+        this.lastUpdatedBy = SymbolTable.intern(lastUpdatedBy);
     }
 
     /**
@@ -295,6 +294,14 @@ public class Appointment {
      * @return Appointment location
      */
     public String getLocation() {
+        return SymbolTable.lookup(location);
+    }
+
+    /**
+     * Gets symbol code of appointment location, for grouping and comparing
+     * @return Location code
+     */
+    public int getLocationCode() {
         return location;
     }
 
@@ -303,6 +310,14 @@ public class Appointment {
      * @return Appointment type
      */
     public String getType() {
+        return SymbolTable.lookup(type);
+    }
+
+    /**
+     * Gets symbol code of appointment type, for grouping and comparing
+     * @return Type code
+     */
+    public int getTypeCode() {
         return type;
     }
 
@@ -323,11 +338,11 @@ public class Appointment {
     }
 
     /**
-     * Gets the formatted local meeting start time in 12 hour, AM/PM format
-     * @return Appointment starting time in local timezone and Timestamp format
+     * Gets the local meeting start time formatted for the user's language, made when first shown
+     * @return Appointment starting time in local timezone as display text
      */
     public String getFormattedLocalStart() {
-        return formattedLocalStart;
+        return DisplayTimes.format(localStart);
     }
 
     /**
@@ -347,11 +362,11 @@ public class Appointment {
     }
 
     /**
-     * Gets the formatted local meeting end time in 12 hour, AM/PM format
-     * @return Appointment ending time in local timezone and Timestamp format
+     * Gets the local meeting end time formatted for the user's language, made when first shown
+     * @return Appointment ending time in local timezone as display text
      */
     public String getFormattedLocalEnd() {
-        return formattedLocalEnd;
+        return DisplayTimes.format(localEnd);
     }
 
     /**
@@ -367,7 +382,7 @@ public class Appointment {
      * @return User that appointment was created by
      */
     public String getCreatedBy() {
-        return createdBy;
+        return SymbolTable.lookup(createdBy);
     }
 
     /**
@@ -383,7 +398,7 @@ public class Appointment {
      * @return User that appointment was last updated by
      */
     public String getLastUpdatedBy() {
-        return lastUpdatedBy;
+        return SymbolTable.lookup(lastUpdatedBy);
     }
 
     /**
@@ -0,0 +1,340 @@
+package Model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Appointment counts and booked minutes for every combination of type, month, location,
+ * contact, and customer country that has appointments.
+ * Built in one pass over the column store, split across cores with fork/join: each task counts
+ * its share of rows into its own map and the maps are merged as tasks finish.
+ * Roll-ups and drill-downs then add up cells of the cube, which hold far fewer entries than there
+ * are appointments, so exploring the reports never rescans appointments.
+ */
+public class AppointmentCube {
+    /**
+     * Attribute appointments can be grouped by
+     */
+    public enum Dimension {
+        /** Appointment type symbol code */
+        TYPE,
+        /** Month of local start, counted as year * 12 + month - 1 */
+        MONTH,
+        /** Appointment location symbol code */
+        LOCATION,
+        /** Contact ID */
+        CONTACT,
+        /** Customer country symbol code */
+        COUNTRY
+    }
+
+    /**
+     * Rows counted by one task before it stops splitting
+     */
+    private static final int SPLIT_ROWS = 8192;
+    /**
+     * Value of the month dimension for appointments with no start
+     */
+    public static final int NO_MONTH = -1;
+
+    /**
+     * Appointment count and booked minutes of each cell
+     */
+    private final Map<Cell, long[]> cells;
+
+    /**
+     * Creates cube from counted cells
+     * @param cells Count and minutes of each cell
+     */
+    private AppointmentCube(Map<Cell, long[]> cells) {
+        this.cells = cells;
+    }
+
+    /**
+     * Builds cube from the column store. Must be called on the JavaFX thread, which waits
+     * while the rows are counted so they cannot change underneath the workers.
+     * @param columns Appointments stored by column
+     * @param countryOf Gets country symbol code of a customer ID
+     * @return New cube
+     */
+    public static AppointmentCube build(AppointmentColumns columns, IntUnaryOperator countryOf) {
+        return new AppointmentCube(ForkJoinPool.commonPool().invoke(new Count(columns, countryOf, 0, columns.size())));
+    }
+
+    /**
+     * Adds up cells matching some fixed values, grouped by one dimension
+     * @param groupBy Dimension to group by
+     * @param filters Value each filtered dimension must have
+     * @return Group for each value with appointments; months earliest first, others largest count first
+     */
+    public List<Group> rollUp(Dimension groupBy, Map<Dimension, Integer> filters) {
+        Map<Integer, long[]> totals = new HashMap<>();
+        for (Map.Entry<Cell, long[]> entry : cells.entrySet()) {
+            Cell cell = entry.getKey();
+            if (cell.matches(filters)) {
+                long[] total = totals.computeIfAbsent(cell.values[groupBy.ordinal()], k -> new long[2]);
+                total[0] += entry.getValue()[0];
+                total[1] += entry.getValue()[1];
+            }
+        }
+        List<Group> groups = new ArrayList<>(totals.size());
+        for (Map.Entry<Integer, long[]> entry : totals.entrySet()) {
+            groups.add(new Group(groupBy, entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        if (groupBy == Dimension.MONTH) {
+            groups.sort(Comparator.comparingInt(Group::getValue));
+        } else {
+            groups.sort(Comparator.comparingLong(Group::getCount).reversed().thenComparingInt(Group::getValue));
+        }
+        return groups;
+    }
+
+    /**
+     * Gets number of non-empty cells
+     * @return Cell count
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Totals of one value of a dimension
+     */
+    public static class Group {
+        /**
+         * Dimension grouped by
+         */
+        private final Dimension dimension;
+        /**
+         * Value of the dimension
+         */
+        private final int value;
+        /**
+         * Number of appointments
+         */
+        private final long count;
+        /**
+         * Total booked minutes
+         */
+        private final long minutes;
+
+        /**
+         * Creates group totals
+         * @param dimension Dimension grouped by
+         * @param value Value of the dimension
+         * @param count Number of appointments
+         * @param minutes Total booked minutes
+         */
+        Group(Dimension dimension, int value, long count, long minutes) {
+            this.dimension = dimension;
+            this.value = value;
+            this.count = count;
+            this.minutes = minutes;
+        }
+
+        /**
+         * Gets dimension grouped by
+         * @return Dimension
+         */
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        /**
+         * Gets value of the dimension: a symbol code, contact ID, or month number
+         * @return Dimension value
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * Gets number of appointments
+         * @return Appointment count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets total booked minutes
+         * @return Minutes
+         */
+        public long getMinutes() {
+            return minutes;
+        }
+    }
+
+    /**
+     * Values of every dimension for one cell of the cube
+     */
+    private static final class Cell {
+        /**
+         * Dimension values, indexed by dimension ordinal
+         */
+        private final int[] values = new int[Dimension.values().length];
+        /**
+         * Hash of values, set with them
+         */
+        private int hash;
+
+        /**
+         * Sets dimension values
+         * @param type Type code
+         * @param month Month number
+         * @param location Location code
+         * @param contact Contact ID
+         * @param country Country code
+         */
+        void set(int type, int month, int location, int contact, int country) {
+            values[Dimension.TYPE.ordinal()] = type;
+            values[Dimension.MONTH.ordinal()] = month;
+            values[Dimension.LOCATION.ordinal()] = location;
+            values[Dimension.CONTACT.ordinal()] = contact;
+            values[Dimension.COUNTRY.ordinal()] = country;
+            hash = Arrays.hashCode(values);
+        }
+
+        /**
+         * Makes a copy to store as a map key, so the original can be reused for lookups
+         * @return New cell with the same values
+         */
+        Cell copy() {
+            Cell copy = new Cell();
+            System.arraycopy(values, 0, copy.values, 0, values.length);
+            copy.hash = hash;
+            return copy;
+        }
+
+        /**
+         * Checks whether the cell has every filtered value
+         * @param filters Value each filtered dimension must have
+         * @return True if all filters match
+         */
+        boolean matches(Map<Dimension, Integer> filters) {
+            for (Map.Entry<Dimension, Integer> filter : filters.entrySet()) {
+                if (values[filter.getKey().ordinal()] != filter.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether another cell has the same values
+         * @param o Object to compare
+         * @return True if equal
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cell && hash == ((Cell) o).hash && Arrays.equals(values, ((Cell) o).values);
+        }
+
+        /**
+         * Gets hash of values
+         * @return Hash code
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Counts a range of rows, splitting it in half while it is large
+     */
+    private static final class Count extends RecursiveTask<Map<Cell, long[]>> {
+        /**
+         * Serialization version
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Appointments stored by column
+         */
+        private final AppointmentColumns columns;
+        /**
+         * Gets country code of a customer ID
+         */
+        private final IntUnaryOperator countryOf;
+        /**
+         * First row to count
+         */
+        private final int from;
+        /**
+         * Row after the last one to count
+         */
+        private final int to;
+
+        /**
+         * Creates counting task
+         * @param columns Appointments stored by column
+         * @param countryOf Gets country code of a customer ID
+         * @param from First row to count
+         * @param to Row after the last one to count
+         */
+        Count(AppointmentColumns columns, IntUnaryOperator countryOf, int from, int to) {
+            this.columns = columns;
+            this.countryOf = countryOf;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Counts the rows, or splits them and merges both halves' counts
+         * @return Count and minutes of each cell in the rows
+         */
+        @Override
+        protected Map<Cell, long[]> compute() {
+            if (to - from > SPLIT_ROWS) {
+                int middle = (from + to) >>> 1;
+                Count right = new Count(columns, countryOf, middle, to);
+                right.fork();
+                Map<Cell, long[]> counted = new Count(columns, countryOf, from, middle).compute();
+                for (Map.Entry<Cell, long[]> entry : right.join().entrySet()) {
+                    long[] total = counted.putIfAbsent(entry.getKey(), entry.getValue());
+                    if (total != null) {
+                        total[0] += entry.getValue()[0];
+                        total[1] += entry.getValue()[1];
+                    }
+                }
+                return counted;
+            }
+            Map<Cell, long[]> counted = new HashMap<>();
+            ZoneId zone = ZoneId.systemDefault();
+            Cell probe = new Cell();
+            for (int row = from; row < to; row++) {
+                long start = columns.getLocalStart(row);
+                long end = columns.getLocalEnd(row);
+                int month = NO_MONTH;
+                long minutes = 0;
+                if (start != Long.MIN_VALUE) {
+                    LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(start), zone);
+                    month = local.getYear() * 12 + local.getMonthValue() - 1;
+                    if (end != Long.MIN_VALUE) {
+                        minutes = (end - start) / 60000;
+                    }
+                }
+                probe.set(columns.getTypeCode(row), month, columns.getLocationCode(row), columns.getContactId(row),
+                        countryOf.applyAsInt(columns.getCustomerId(row)));
+                long[] total = counted.get(probe);
+                if (total == null) {
+                    total = new long[2];
+                    counted.put(probe.copy(), total);
+                }
+                total[0]++;
+                total[1] += minutes;
+            }
+            return counted;
+        }
+    }
+}
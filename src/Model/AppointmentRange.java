@@ -0,0 +1,90 @@
+package Model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Live list of appointments starting in a fixed time range, for showing in a table.
+ * The list is re-read from the start time index whenever appointments change, and only
+ * replaced when its contents differ, so unrelated changes leave the table selection alone.
+ * Holders must keep a reference to the range for as long as it is shown; once it is
+ * dropped it stops listening for changes.
+ */
+public class AppointmentRange {
+    /**
+     * Start time index the range is read from
+     */
+    private final StartIndex index;
+    /**
+     * Start of range, inclusive
+     */
+    private final LocalDateTime from;
+    /**
+     * End of range, exclusive
+     */
+    private final LocalDateTime to;
+    /**
+     * Appointments currently in the range, earliest first
+     */
+    private final ObservableList<Appointment> items = FXCollections.observableArrayList();
+    /**
+     * Re-reads the range after appointments change, held here so the weak registration lives as long as the range
+     */
+    private final ListChangeListener<Appointment> refresher = this::refresh;
+
+    /**
+     * Creates live range over appointments
+     * @param appointments List of all appointments, indexed by start index
+     * @param index Start time index of the appointments
+     * @param from Start of range, inclusive
+     * @param to End of range, exclusive
+     */
+    AppointmentRange(ObservableList<Appointment> appointments, StartIndex index, LocalDateTime from, LocalDateTime to) {
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        items.setAll(index.between(from, to));
+        appointments.addListener(new WeakListChangeListener<>(refresher));
+    }
+
+    /**
+     * Gets appointments in the range
+     * @return Live list of appointments starting in the range, earliest first
+     */
+    public ObservableList<Appointment> getItems() {
+        return items;
+    }
+
+    /**
+     * Re-reads the range and replaces the list if any appointment entered, left, or moved.
+     * Appointments edited in place that stay put are replaced with themselves so table rows redraw.
+     * @param change Change to the list of all appointments
+     */
+    private void refresh(ListChangeListener.Change<? extends Appointment> change) {
+        List<Appointment> current = index.between(from, to);
+        boolean same = current.size() == items.size();
+        for (int i = 0; same && i < current.size(); i++) {
+            same = current.get(i) == items.get(i);
+        }
+        if (!same) {
+            items.setAll(current);
+            return;
+        }
+        while (change.next()) {
+            if (!change.wasReplaced()) {
+                continue;
+            }
+            for (Appointment added : change.getAddedSubList()) {
+                int position = items.indexOf(added);
+                if (position >= 0) {
+                    items.set(position, added);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package Model;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Appointment counts by day of local start, kept in sync with the list of all appointments.
+ * Days are stored in a Fenwick tree, so the count over any range of days, and so any week, month,
+ * or year, takes a few steps however many appointments or days there are, and each add, edit,
+ * or delete updates only the days involved. Appointments with no start are not counted.
+ */
+public class AppointmentTimeSeries {
+    /**
+     * Days covered on each side of the first day counted, and the least the range grows by
+     */
+    private static final int MARGIN_DAYS = 366;
+
+    /**
+     * Epoch day of the first covered day
+     */
+    private long origin;
+    /**
+     * Appointment count of each covered day
+     */
+    private int[] daily = new int[0];
+    /**
+     * Fenwick tree over daily counts, indexed from 1
+     */
+    private int[] tree = new int[1];
+    /**
+     * Number of appointments counted
+     */
+    private int total;
+    /**
+     * Epoch day each appointment is counted on, so it can be uncounted after being changed in place
+     */
+    private final Map<Appointment, Long> countedOn = new IdentityHashMap<>();
+
+    /**
+     * Creates time series over a list of appointments
+     * @param appointments List of all appointments
+     */
+    public AppointmentTimeSeries(ObservableList<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+        appointments.addListener((ListChangeListener<Appointment>) change -> {
+            while (change.next()) {
+                for (Appointment removed : change.getRemoved()) {
+                    remove(removed);
+                }
+                for (Appointment added : change.getAddedSubList()) {
+                    add(added);
+                }
+            }
+        });
+    }
+
+    /**
+     * Counts appointments starting on a range of days
+     * @param from First day
+     * @param to Day after the last day
+     * @return Appointment count
+     */
+    public int count(LocalDate from, LocalDate to) {
+        return prefix(to.toEpochDay()) - prefix(from.toEpochDay());
+    }
+
+    /**
+     * Counts appointments in each day, week, month, or year of a range; weeks start on Monday
+     * @param unit DAYS, WEEKS, MONTHS, or YEARS
+     * @param from Day in the first period
+     * @param to Day after the range
+     * @return Count of every period in the range keyed by its first day, earliest first, including empty periods
+     */
+    public Map<LocalDate, Integer> rollUp(ChronoUnit unit, LocalDate from, LocalDate to) {
+        Map<LocalDate, Integer> counts = new LinkedHashMap<>();
+        for (LocalDate period = periodStart(unit, from); period.isBefore(to); ) {
+            LocalDate next = period.plus(1, unit);
+            counts.put(period, count(period, next.isAfter(to) ? to : next));
+            period = next;
+        }
+        return counts;
+    }
+
+    /**
+     * Gets appointment counts for each month from the first to the last appointment
+     * @param locale Locale month names are shown in
+     * @return New report row for each month with appointments, earliest first, labelled with month and year
+     */
+    public ObservableList<Report> getMonthReport(Locale locale) {
+        ObservableList<Report> reports = FXCollections.observableArrayList();
+        if (total == 0) {
+            return reports;
+        }
+        YearMonth last = YearMonth.from(LocalDate.ofEpochDay(origin + find(total)));
+        for (YearMonth month = YearMonth.from(LocalDate.ofEpochDay(origin + find(1))); !month.isAfter(last); month = month.plusMonths(1)) {
+            int count = count(month.atDay(1), month.plusMonths(1).atDay(1));
+            if (count > 0) {
+                reports.add(new Report(new ReadOnlyObjectWrapper<>(count), new ReadOnlyStringWrapper(monthLabel(month, locale))));
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Gets report label of a month, such as October 2021
+     * @param month Month of a year
+     * @param locale Locale month name is shown in
+     * @return Month name and year
+     */
+    public static String monthLabel(YearMonth month, Locale locale) {
+        return month.format(DateTimeFormatter.ofPattern("MMMM yyyy", locale));
+    }
+
+    /**
+     * Gets first day of the period containing a day
+     * @param unit DAYS, WEEKS, MONTHS, or YEARS
+     * @param day Day in the period
+     * @return First day of period
+     */
+    private static LocalDate periodStart(ChronoUnit unit, LocalDate day) {
+        switch (unit) {
+            case DAYS:
+                return day;
+            case WEEKS:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHS:
+                return day.withDayOfMonth(1);
+            case YEARS:
+                return day.withDayOfYear(1);
+            default:
+                throw new IllegalArgumentException("Unsupported period: " + unit);
+        }
+    }
+
+    /**
+     * Counts appointments starting before a day
+     * @param epochDay Epoch day
+     * @return Appointment count
+     */
+    private int prefix(long epochDay) {
+        long days = Math.min(Math.max(epochDay - origin, 0), daily.length);
+        int sum = 0;
+        for (int i = (int) days; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the day holding the nth counted appointment, in order of day
+     * @param n Position from 1 to total
+     * @return Offset of day from origin
+     */
+    private int find(int n) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(daily.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= daily.length && tree[next] < n) {
+                position = next;
+                n -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Counts an appointment on the day of its local start
+     * @param appointment Appointment to add
+     */
+    private void add(Appointment appointment) {
+        if (appointment.getLocalStart() == null) {
+            return;
+        }
+        long day = appointment.getLocalStart().toLocalDateTime().toLocalDate().toEpochDay();
+        cover(day);
+        update((int) (day - origin), 1);
+        countedOn.put(appointment, day);
+    }
+
+    /**
+     * Uncounts an appointment from the day it was counted on
+     * @param appointment Appointment to remove
+     */
+    private void remove(Appointment appointment) {
+        Long day = countedOn.remove(appointment);
+        if (day != null) {
+            update((int) (day - origin), -1);
+        }
+    }
+
+    /**
+     * Changes the count of one covered day
+     * @param offset Offset of day from origin
+     * @param delta Amount to add
+     */
+    private void update(int offset, int delta) {
+        daily[offset] += delta;
+        total += delta;
+        for (int i = offset + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Widens the covered days to include a day, rebuilding the tree if they grow
+     * @param day Epoch day
+     */
+    private void cover(long day) {
+        if (daily.length == 0) {
+            origin = day - MARGIN_DAYS;
+            daily = new int[2 * MARGIN_DAYS + 1];
+        } else if (day < origin || day >= origin + daily.length) {
+            // grow by at least the current span so repeated widening stays cheap
+            long grow = Math.max(daily.length, MARGIN_DAYS);
+            long from = day < origin ? day - grow : origin;
+            long to = day >= origin + daily.length ? day + 1 + grow : origin + daily.length;
+            int[] widened = new int[Math.toIntExact(to - from)];
+            System.arraycopy(daily, 0, widened, (int) (origin - from), daily.length);
+            origin = from;
+            daily = widened;
+        } else {
+            return;
+        }
+        tree = new int[daily.length + 1];
+        System.arraycopy(daily, 0, tree, 1, daily.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
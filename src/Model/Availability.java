@@ -0,0 +1,349 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Busy quarter hours of each customer, contact, and user, one 96-bit map per local day
+ * held in two longs, kept in sync with the list of all appointments.
+ * Free/busy questions are answered with a few masked word tests instead of looking at appointments.
+ * A quarter hour is busy if any appointment touches part of it.
+ * Each resource costs one small map entry plus 16 bytes for every day it has appointments.
+ * Must be created after the conflict engine so its listener runs after the engine has applied each change.
+ */
+public class Availability {
+    /**
+     * Quarter hours in a day
+     */
+    private static final int QUARTERS = 96;
+    /**
+     * Milliseconds in a quarter hour
+     */
+    private static final long QUARTER_MILLIS = 15 * 60 * 1000;
+
+    /**
+     * Engine used to rebuild a day's bits after an appointment leaves it
+     */
+    private final ConflictEngine conflicts;
+    /**
+     * Busy bits of each resource kind, keyed by resource ID and then by local epoch day
+     */
+    private final Map<ConflictEngine.Resource, IntMap<IntMap<long[]>>> busy = new EnumMap<>(ConflictEngine.Resource.class);
+    /**
+     * Resource IDs and times each appointment was marked under, so its days can be rebuilt after it changes in place
+     */
+    private final Map<Appointment, long[]> markedAt = new IdentityHashMap<>();
+    /**
+     * Lets checks run together while changes wait for them
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates availability maps over a list of appointments
+     * @param appointments List of all appointments
+     * @param conflicts Conflict engine over the same list, created first
+     */
+    public Availability(ObservableList<Appointment> appointments, ConflictEngine conflicts) {
+        this.conflicts = conflicts;
+        for (ConflictEngine.Resource resource : ConflictEngine.Resource.values()) {
+            busy.put(resource, new IntMap<>());
+        }
+        for (Appointment appointment : appointments) {
+            mark(appointment);
+        }
+        appointments.addListener((ListChangeListener<Appointment>) change -> {
+            lock.writeLock().lock();
+            try {
+                while (change.next()) {
+                    for (Appointment removed : change.getRemoved()) {
+                        unmark(removed);
+                    }
+                    for (Appointment added : change.getAddedSubList()) {
+                        mark(added);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Checks whether a customer, contact, or user has nothing booked in a period
+     * @param resource Kind of resource
+     * @param resourceId Customer, contact, or user ID
+     * @param start Local start of period
+     * @param end Local end of period
+     * @return True if no quarter hour touched by the period is busy
+     */
+    public boolean isFree(ConflictEngine.Resource resource, int resourceId, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            return isFree(busy.get(resource).get(resourceId), millis(start), millis(end));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds which of some customers, contacts, or users have nothing booked in a period
+     * @param resource Kind of resource
+     * @param resourceIds Customer, contact, or user IDs to check
+     * @param start Local start of period
+     * @param end Local end of period
+     * @return IDs of free resources, in the order given
+     */
+    public List<Integer> whoIsFree(ConflictEngine.Resource resource, Collection<Integer> resourceIds, LocalDateTime start, LocalDateTime end) {
+        List<Integer> free = new ArrayList<>();
+        long from = millis(start);
+        long to = millis(end);
+        lock.readLock().lock();
+        try {
+            IntMap<IntMap<long[]>> byId = busy.get(resource);
+            for (int resourceId : resourceIds) {
+                if (isFree(byId.get(resourceId), from, to)) {
+                    free.add(resourceId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return free;
+    }
+
+    /**
+     * Finds which of some customers, contacts, or users have nothing booked in the quarter hour starting at a time
+     * @param resource Kind of resource
+     * @param resourceIds Customer, contact, or user IDs to check
+     * @param time Local start of quarter hour
+     * @return IDs of free resources, in the order given
+     */
+    public List<Integer> whoIsFree(ConflictEngine.Resource resource, Collection<Integer> resourceIds, LocalDateTime time) {
+        return whoIsFree(resource, resourceIds, time, time.plusMinutes(15));
+    }
+
+    /**
+     * Gets busy quarter hours of a resource on a day
+     * @param resource Kind of resource
+     * @param resourceId Customer, contact, or user ID
+     * @param day Local date
+     * @return Copy of the day's two words; bit n is the quarter hour starting n * 15 minutes after midnight
+     */
+    public long[] getBusyQuarters(ConflictEngine.Resource resource, int resourceId, LocalDate day) {
+        lock.readLock().lock();
+        try {
+            IntMap<long[]> days = busy.get(resource).get(resourceId);
+            long[] bits = days == null ? null : days.get((int) day.toEpochDay());
+            return bits == null ? new long[2] : bits.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks a resource's days for busy quarter hours in a period; caller holds the read lock
+     * @param days Busy bits of the resource by local epoch day, or null if it has none
+     * @param from Start of period in epoch milliseconds
+     * @param to End of period in epoch milliseconds
+     * @return True if no quarter hour touched by the period is busy
+     */
+    private static boolean isFree(IntMap<long[]> days, long from, long to) {
+        if (days == null || from >= to) {
+            return true;
+        }
+        LocalDateTime start = new Timestamp(from).toLocalDateTime();
+        LocalDateTime end = new Timestamp(to).toLocalDateTime();
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            long[] bits = days.get((int) day.toEpochDay());
+            if (bits != null && anySet(bits, firstQuarter(day, start), lastQuarter(day, end))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks an appointment's quarter hours busy for its customer, contact, and user; caller holds the write lock
+     * @param appointment Appointment to add
+     */
+    private void mark(Appointment appointment) {
+        if (appointment.getLocalStart() == null || appointment.getLocalEnd() == null) {
+            return;
+        }
+        ConflictEngine.Resource[] resources = ConflictEngine.Resource.values();
+        long[] marked = new long[resources.length + 2];
+        marked[0] = appointment.getLocalStart().getTime();
+        marked[1] = appointment.getLocalEnd().getTime();
+        for (ConflictEngine.Resource resource : resources) {
+            int resourceId = resource.id.applyAsInt(appointment);
+            marked[resource.ordinal() + 2] = resourceId;
+            IntMap<IntMap<long[]>> byId = busy.get(resource);
+            IntMap<long[]> days = byId.get(resourceId);
+            if (days == null) {
+                days = new IntMap<>();
+                byId.put(resourceId, days);
+            }
+            setBusy(days, marked[0], marked[1]);
+        }
+        markedAt.put(appointment, marked);
+    }
+
+    /**
+     * Rebuilds the days an appointment was marked on from the conflict engine, which no longer holds it;
+     * caller holds the write lock
+     * @param appointment Appointment to remove
+     */
+    private void unmark(Appointment appointment) {
+        long[] marked = markedAt.remove(appointment);
+        if (marked == null) {
+            return;
+        }
+        LocalDate first = new Timestamp(marked[0]).toLocalDateTime().toLocalDate();
+        LocalDate last = new Timestamp(marked[1]).toLocalDateTime().toLocalDate();
+        for (ConflictEngine.Resource resource : ConflictEngine.Resource.values()) {
+            int resourceId = (int) marked[resource.ordinal() + 2];
+            IntMap<IntMap<long[]>> byId = busy.get(resource);
+            IntMap<long[]> days = byId.get(resourceId);
+            if (days == null) {
+                continue;
+            }
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                days.remove((int) day.toEpochDay());
+                long dayStart = millis(day.atStartOfDay());
+                long dayEnd = millis(day.plusDays(1).atStartOfDay());
+                // other appointments may share these quarter hours, so refill the day from what is still booked
+                for (long[] times : conflicts.busyTimes(resource, resourceId, dayStart, dayEnd)) {
+                    setBusy(days, Math.max(times[0], dayStart), Math.min(times[1], dayEnd));
+                }
+            }
+            if (days.size() == 0) {
+                byId.remove(resourceId);
+            }
+        }
+    }
+
+    /**
+     * Marks the quarter hours a period touches as busy, day by day
+     * @param days Busy bits of a resource by local epoch day
+     * @param from Start of period in epoch milliseconds
+     * @param to End of period in epoch milliseconds
+     */
+    private static void setBusy(IntMap<long[]> days, long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        LocalDateTime start = new Timestamp(from).toLocalDateTime();
+        LocalDateTime end = new Timestamp(to).toLocalDateTime();
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            int firstQuarter = firstQuarter(day, start);
+            int lastQuarter = lastQuarter(day, end);
+            if (firstQuarter >= lastQuarter) {
+                continue;
+            }
+            int epochDay = (int) day.toEpochDay();
+            long[] bits = days.get(epochDay);
+            if (bits == null) {
+                bits = new long[2];
+                days.put(epochDay, bits);
+            }
+            setRange(bits, firstQuarter, lastQuarter);
+        }
+    }
+
+    /**
+     * Gets first quarter hour of a day touched by a period
+     * @param day Local date
+     * @param start Local start of period
+     * @return Quarter hour index, 0 if the period starts on an earlier day
+     */
+    private static int firstQuarter(LocalDate day, LocalDateTime start) {
+        if (start.toLocalDate().isBefore(day)) {
+            return 0;
+        }
+        return (start.getHour() * 60 + start.getMinute()) / 15;
+    }
+
+    /**
+     * Gets quarter hour after the last one of a day touched by a period
+     * @param day Local date
+     * @param end Local end of period
+     * @return Quarter hour index, 96 if the period ends on a later day
+     */
+    private static int lastQuarter(LocalDate day, LocalDateTime end) {
+        if (end.toLocalDate().isAfter(day)) {
+            return QUARTERS;
+        }
+        long millisIntoDay = (end.getHour() * 3600L + end.getMinute() * 60L + end.getSecond()) * 1000 + end.getNano() / 1000000;
+        return (int) ((millisIntoDay + QUARTER_MILLIS - 1) / QUARTER_MILLIS);
+    }
+
+    /**
+     * Sets bits from one index up to, but not including, another
+     * @param bits Bit words
+     * @param from First bit to set
+     * @param to Bit after the last one to set
+     */
+    private static void setRange(long[] bits, int from, int to) {
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            bits[word] |= mask(word, from, to);
+        }
+    }
+
+    /**
+     * Checks whether any bit is set from one index up to, but not including, another
+     * @param bits Bit words
+     * @param from First bit to check
+     * @param to Bit after the last one to check
+     * @return True if any bit in the range is set
+     */
+    private static boolean anySet(long[] bits, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            if ((bits[word] & mask(word, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the bits of one word that fall in a range
+     * @param word Word index
+     * @param from First bit of range
+     * @param to Bit after the last one of range
+     * @return Mask of the range's bits in the word
+     */
+    private static long mask(int word, int from, int to) {
+        long mask = -1L;
+        if (word == from >>> 6) {
+            mask &= -1L << (from & 63);
+        }
+        if (word == (to - 1) >>> 6) {
+            mask &= -1L >>> (63 - ((to - 1) & 63));
+        }
+        return mask;
+    }
+
+    /**
+     * Converts a local time to epoch milliseconds, matching how appointment times are indexed
+     * @param time Local time
+     * @return Epoch milliseconds
+     */
+    private static long millis(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime();
+    }
+}
@@ -0,0 +1,249 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks many proposed appointments for conflicts at once, for bulk scheduling.
+ * Existing bookings of every customer, contact, and user in the batch are read from the conflict
+ * engine in one go. Then, for each of those resources, the proposals and bookings are sorted by
+ * start and swept once, keeping the intervals still running in a heap ordered by end, so every
+ * overlapping pair is found in O(n log n) plus the number of overlaps. Overlap is half-open, as in
+ * the conflict engine. A proposal with the ID of an existing appointment replaces it, so it is not
+ * checked against its own old times.
+ */
+public class BatchValidator {
+    /**
+     * Source of existing bookings
+     */
+    private final ConflictEngine conflicts;
+
+    /**
+     * Creates batch validator
+     * @param conflicts Conflict engine holding existing bookings
+     */
+    public BatchValidator(ConflictEngine conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * Checks proposed appointments against each other and against existing appointments
+     * @param proposals Proposed appointments, using their local start and end
+     * @return Verdict for each proposal, in the same order
+     */
+    public List<Verdict> validate(List<Appointment> proposals) {
+        List<Verdict> verdicts = new ArrayList<>(proposals.size());
+        Map<ConflictEngine.Resource, Set<Integer>> resourceIds = new EnumMap<>(ConflictEngine.Resource.class);
+        Set<Integer> proposedIds = new HashSet<>();
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (ConflictEngine.Resource resource : ConflictEngine.Resource.values()) {
+            resourceIds.put(resource, new HashSet<>());
+        }
+        for (int i = 0; i < proposals.size(); i++) {
+            Appointment proposal = proposals.get(i);
+            Verdict verdict = new Verdict(i, proposal);
+            verdicts.add(verdict);
+            if (proposal.getLocalStart() == null || proposal.getLocalEnd() == null
+                    || !proposal.getLocalStart().before(proposal.getLocalEnd())) {
+                verdict.invalidTimes = true;
+                continue;
+            }
+            proposedIds.add(proposal.getAppointmentId());
+            from = Math.min(from, proposal.getLocalStart().getTime());
+            to = Math.max(to, proposal.getLocalEnd().getTime());
+            for (ConflictEngine.Resource resource : ConflictEngine.Resource.values()) {
+                resourceIds.get(resource).add(resource.id.applyAsInt(proposal));
+            }
+        }
+        if (from >= to) {
+            return verdicts;
+        }
+        Map<ConflictEngine.Resource, Map<Integer, List<long[]>>> booked = conflicts.busyTimes(resourceIds, from, to);
+        for (ConflictEngine.Resource resource : ConflictEngine.Resource.values()) {
+            // group the batch's intervals by resource ID; proposals are tagged with their index
+            Map<Integer, List<Interval>> byId = new HashMap<>();
+            for (Verdict verdict : verdicts) {
+                if (!verdict.invalidTimes) {
+                    Appointment proposal = verdict.proposal;
+                    byId.computeIfAbsent(resource.id.applyAsInt(proposal), k -> new ArrayList<>())
+                            .add(new Interval(proposal.getLocalStart().getTime(), proposal.getLocalEnd().getTime(), verdict.index, true));
+                }
+            }
+            for (Map.Entry<Integer, List<Interval>> entry : byId.entrySet()) {
+                List<Interval> intervals = entry.getValue();
+                for (long[] times : booked.get(resource).getOrDefault(entry.getKey(), Collections.emptyList())) {
+                    if (!proposedIds.contains((int) times[2])) {
+                        intervals.add(new Interval(times[0], times[1], (int) times[2], false));
+                    }
+                }
+                sweep(resource, intervals, verdicts);
+            }
+        }
+        return verdicts;
+    }
+
+    /**
+     * Finds every overlapping pair among one resource's intervals and records them on the proposals involved
+     * @param resource Kind of resource the intervals belong to
+     * @param intervals Proposed and existing intervals of one resource
+     * @param verdicts Verdicts of all proposals, by index
+     */
+    private static void sweep(ConflictEngine.Resource resource, List<Interval> intervals, List<Verdict> verdicts) {
+        intervals.sort((a, b) -> Long.compare(a.start, b.start));
+        PriorityQueue<Interval> running = new PriorityQueue<>((a, b) -> Long.compare(a.end, b.end));
+        for (Interval interval : intervals) {
+            // intervals that ended by now cannot overlap this one or any later one
+            while (!running.isEmpty() && running.peek().end <= interval.start) {
+                running.poll();
+            }
+            for (Interval other : running) {
+                if (interval.proposed) {
+                    verdicts.get(interval.id).addConflict(resource, other);
+                }
+                if (other.proposed) {
+                    verdicts.get(other.id).addConflict(resource, interval);
+                }
+            }
+            running.add(interval);
+        }
+    }
+
+    /**
+     * Proposed or existing appointment time of one resource
+     */
+    private static class Interval {
+        /**
+         * Start in epoch milliseconds
+         */
+        private final long start;
+        /**
+         * End in epoch milliseconds
+         */
+        private final long end;
+        /**
+         * Proposal index if proposed, otherwise appointment ID
+         */
+        private final int id;
+        /**
+         * Whether this is a proposal rather than an existing appointment
+         */
+        private final boolean proposed;
+
+        /**
+         * Creates interval
+         * @param start Start in epoch milliseconds
+         * @param end End in epoch milliseconds
+         * @param id Proposal index if proposed, otherwise appointment ID
+         * @param proposed Whether this is a proposal
+         */
+        Interval(long start, long end, int id, boolean proposed) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.proposed = proposed;
+        }
+    }
+
+    /**
+     * Result of checking one proposed appointment
+     */
+    public static class Verdict {
+        /**
+         * Position of proposal in the batch
+         */
+        private final int index;
+        /**
+         * Proposed appointment
+         */
+        private final Appointment proposal;
+        /**
+         * Whether the proposal has no start or end, or does not end after it starts
+         */
+        private boolean invalidTimes;
+        /**
+         * IDs of existing appointments it overlaps, for each resource kind with any
+         */
+        private final Map<ConflictEngine.Resource, Set<Integer>> existingConflicts = new EnumMap<>(ConflictEngine.Resource.class);
+        /**
+         * Batch positions of other proposals it overlaps, for each resource kind with any
+         */
+        private final Map<ConflictEngine.Resource, Set<Integer>> batchConflicts = new EnumMap<>(ConflictEngine.Resource.class);
+
+        /**
+         * Creates verdict with no conflicts
+         * @param index Position of proposal in the batch
+         * @param proposal Proposed appointment
+         */
+        Verdict(int index, Appointment proposal) {
+            this.index = index;
+            this.proposal = proposal;
+        }
+
+        /**
+         * Records an overlap with another interval of the same resource
+         * @param resource Kind of resource both book
+         * @param other Overlapping proposal or existing appointment
+         */
+        private void addConflict(ConflictEngine.Resource resource, Interval other) {
+            Map<ConflictEngine.Resource, Set<Integer>> conflicts = other.proposed ? batchConflicts : existingConflicts;
+            conflicts.computeIfAbsent(resource, k -> new TreeSet<>()).add(other.id);
+        }
+
+        /**
+         * Gets position of proposal in the batch
+         * @return Batch index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets proposed appointment
+         * @return Proposal
+         */
+        public Appointment getProposal() {
+            return proposal;
+        }
+
+        /**
+         * Checks whether the proposal can be saved
+         * @return True if its times are valid and it overlaps nothing
+         */
+        public boolean isClean() {
+            return !invalidTimes && existingConflicts.isEmpty() && batchConflicts.isEmpty();
+        }
+
+        /**
+         * Checks whether the proposal's times are unusable
+         * @return True if it has no start or end, or does not end after it starts
+         */
+        public boolean hasInvalidTimes() {
+            return invalidTimes;
+        }
+
+        /**
+         * Gets existing appointments the proposal overlaps
+         * @return Read-only appointment IDs for each resource kind with any
+         */
+        public Map<ConflictEngine.Resource, Set<Integer>> getExistingConflicts() {
+            return Collections.unmodifiableMap(existingConflicts);
+        }
+
+        /**
+         * Gets other proposals in the batch the proposal overlaps
+         * @return Read-only batch indexes for each resource kind with any
+         */
+        public Map<ConflictEngine.Resource, Set<Integer>> getBatchConflicts() {
+            return Collections.unmodifiableMap(batchConflicts);
+        }
+    }
+}
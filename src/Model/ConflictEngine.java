@@ -0,0 +1,326 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Finds appointments that overlap a proposed time for the same customer, contact, or user.
+ * Each customer, contact, and user has an interval tree of its appointments' local times,
+ * kept in sync with the list of all appointments, so a check only searches the three trees involved.
+ * Appointments overlap when each starts before the other ends; one ending exactly when the other starts is not a conflict.
+ * Checks may run on any thread while the JavaFX thread changes appointments.
+ */
+public class ConflictEngine {
+    /**
+     * Kind of resource an appointment books
+     */
+    public enum Resource {
+        /** Customer the appointment is with */
+        CUSTOMER(Appointment::getCustomerId),
+        /** Contact running the appointment */
+        CONTACT(Appointment::getContactId),
+        /** User who scheduled the appointment */
+        USER(Appointment::getUserId);
+
+        /**
+         * Gets ID of the resource an appointment books
+         */
+        final ToIntFunction<Appointment> id;
+
+        /**
+         * Creates resource kind
+         * @param id Gets ID of the resource an appointment books
+         */
+        Resource(ToIntFunction<Appointment> id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Interval trees of each resource kind, keyed by resource ID
+     */
+    private final Map<Resource, IntMap<IntervalTree>> trees = new EnumMap<>(Resource.class);
+    /**
+     * Resource IDs and times each appointment is filed under, so it can be found again after being changed in place
+     */
+    private final Map<Appointment, Filed> filedAt = new IdentityHashMap<>();
+    /**
+     * Lets checks run together while changes wait for them
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates conflict engine over a list of appointments
+     * @param appointments List of all appointments
+     */
+    public ConflictEngine(ObservableList<Appointment> appointments) {
+        for (Resource resource : Resource.values()) {
+            trees.put(resource, new IntMap<>());
+        }
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+        appointments.addListener((ListChangeListener<Appointment>) change -> {
+            lock.writeLock().lock();
+            try {
+                while (change.next()) {
+                    for (Appointment removed : change.getRemoved()) {
+                        remove(removed);
+                    }
+                    for (Appointment added : change.getAddedSubList()) {
+                        add(added);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Finds appointments of one resource that overlap a proposed time
+     * @param resource Kind of resource
+     * @param resourceId Customer, contact, or user ID
+     * @param start Proposed local start
+     * @param end Proposed local end
+     * @param excludeId ID of appointment being edited, which cannot conflict with itself
+     * @return IDs of overlapping appointments, earliest first
+     */
+    public List<Integer> findConflicts(Resource resource, int resourceId, Timestamp start, Timestamp end, int excludeId) {
+        List<Integer> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IntervalTree tree = trees.get(resource).get(resourceId);
+            if (tree != null) {
+                tree.overlapping(start.getTime(), end.getTime(), excludeId, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Finds appointments overlapping a proposed time for its customer, contact, and user together,
+     * all read at the same moment
+     * @param customerId Customer ID
+     * @param contactId Contact ID
+     * @param userId User ID
+     * @param start Proposed local start
+     * @param end Proposed local end
+     * @param excludeId ID of appointment being edited, which cannot conflict with itself
+     * @return IDs of overlapping appointments for each resource that has any
+     */
+    public Map<Resource, List<Integer>> findConflicts(int customerId, int contactId, int userId, Timestamp start, Timestamp end, int excludeId) {
+        Map<Resource, List<Integer>> conflicts = new EnumMap<>(Resource.class);
+        lock.readLock().lock();
+        try {
+            addConflicts(conflicts, Resource.CUSTOMER, customerId, start, end, excludeId);
+            addConflicts(conflicts, Resource.CONTACT, contactId, start, end, excludeId);
+            addConflicts(conflicts, Resource.USER, userId, start, end, excludeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Collections.unmodifiableMap(conflicts);
+    }
+
+    /**
+     * Gets times when any of a customer, contact, or user is booked, all read at the same moment
+     * @param customerId Customer ID
+     * @param contactId Contact ID
+     * @param userId User ID
+     * @param from Start of period in epoch milliseconds, inclusive
+     * @param to End of period in epoch milliseconds, exclusive
+     * @return Booked {start, end} pairs overlapping the period, sorted by start and merged where they overlap or touch
+     */
+    List<long[]> busyTimes(int customerId, int contactId, int userId, long from, long to) {
+        List<long[]> booked = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int[] resourceIds = {customerId, contactId, userId};
+            for (Resource resource : Resource.values()) {
+                IntervalTree tree = trees.get(resource).get(resourceIds[resource.ordinal()]);
+                if (tree != null) {
+                    tree.times(from, to, booked);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        booked.sort((a, b) -> Long.compare(a[0], b[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] times : booked) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && times[0] <= last[1]) {
+                last[1] = Math.max(last[1], times[1]);
+            } else {
+                merged.add(new long[] {times[0], times[1]});
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Gets times when one customer, contact, or user is booked
+     * @param resource Kind of resource
+     * @param resourceId Customer, contact, or user ID
+     * @param from Start of period in epoch milliseconds, inclusive
+     * @param to End of period in epoch milliseconds, exclusive
+     * @return Booked {start, end, appointment ID} entries overlapping the period, sorted by start
+     */
+    List<long[]> busyTimes(Resource resource, int resourceId, long from, long to) {
+        List<long[]> booked = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IntervalTree tree = trees.get(resource).get(resourceId);
+            if (tree != null) {
+                tree.times(from, to, booked);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return booked;
+    }
+
+    /**
+     * Gets booked times of many customers, contacts, and users, all read at the same moment
+     * @param resourceIds IDs to look up for each resource kind
+     * @param from Start of period in epoch milliseconds, inclusive
+     * @param to End of period in epoch milliseconds, exclusive
+     * @return Booked {start, end, appointment ID} entries overlapping the period for each resource kind and ID that has any
+     */
+    Map<Resource, Map<Integer, List<long[]>>> busyTimes(Map<Resource, ? extends Collection<Integer>> resourceIds, long from, long to) {
+        Map<Resource, Map<Integer, List<long[]>>> booked = new EnumMap<>(Resource.class);
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Resource, ? extends Collection<Integer>> entry : resourceIds.entrySet()) {
+                Map<Integer, List<long[]>> byId = new HashMap<>();
+                for (int resourceId : entry.getValue()) {
+                    IntervalTree tree = trees.get(entry.getKey()).get(resourceId);
+                    if (tree != null) {
+                        List<long[]> times = new ArrayList<>();
+                        tree.times(from, to, times);
+                        if (!times.isEmpty()) {
+                            byId.put(resourceId, times);
+                        }
+                    }
+                }
+                booked.put(entry.getKey(), byId);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return booked;
+    }
+
+    /**
+     * Adds one resource's overlapping appointments to a result, if it has any; caller holds the read lock
+     * @param conflicts Result to add to
+     * @param resource Kind of resource
+     * @param resourceId Customer, contact, or user ID
+     * @param start Proposed local start
+     * @param end Proposed local end
+     * @param excludeId ID of appointment being edited
+     */
+    private void addConflicts(Map<Resource, List<Integer>> conflicts, Resource resource, int resourceId, Timestamp start, Timestamp end, int excludeId) {
+        IntervalTree tree = trees.get(resource).get(resourceId);
+        if (tree == null) {
+            return;
+        }
+        List<Integer> found = new ArrayList<>();
+        tree.overlapping(start.getTime(), end.getTime(), excludeId, found);
+        if (!found.isEmpty()) {
+            conflicts.put(resource, found);
+        }
+    }
+
+    /**
+     * Files an appointment in the trees of its customer, contact, and user; caller holds the write lock
+     * @param appointment Appointment to add
+     */
+    private void add(Appointment appointment) {
+        if (appointment.getLocalStart() == null || appointment.getLocalEnd() == null) {
+            return;
+        }
+        Filed filed = new Filed(appointment);
+        for (Resource resource : Resource.values()) {
+            IntMap<IntervalTree> byId = trees.get(resource);
+            int resourceId = filed.resourceIds[resource.ordinal()];
+            IntervalTree tree = byId.get(resourceId);
+            if (tree == null) {
+                tree = new IntervalTree();
+                byId.put(resourceId, tree);
+            }
+            tree.add(filed.start, filed.end, filed.appointmentId);
+        }
+        filedAt.put(appointment, filed);
+    }
+
+    /**
+     * Removes an appointment from where it was filed; caller holds the write lock
+     * @param appointment Appointment to remove
+     */
+    private void remove(Appointment appointment) {
+        Filed filed = filedAt.remove(appointment);
+        if (filed == null) {
+            return;
+        }
+        for (Resource resource : Resource.values()) {
+            IntMap<IntervalTree> byId = trees.get(resource);
+            int resourceId = filed.resourceIds[resource.ordinal()];
+            IntervalTree tree = byId.get(resourceId);
+            tree.remove(filed.start, filed.appointmentId);
+            if (tree.isEmpty()) {
+                byId.remove(resourceId);
+            }
+        }
+    }
+
+    /**
+     * Values an appointment was filed under
+     */
+    private static class Filed {
+        /**
+         * Appointment ID
+         */
+        private final int appointmentId;
+        /**
+         * Local start in epoch milliseconds
+         */
+        private final long start;
+        /**
+         * Local end in epoch milliseconds
+         */
+        private final long end;
+        /**
+         * Customer, contact, and user IDs, indexed by resource ordinal
+         */
+        private final int[] resourceIds = new int[Resource.values().length];
+
+        /**
+         * Records an appointment's current values
+         * @param appointment Appointment being filed
+         */
+        Filed(Appointment appointment) {
+            appointmentId = appointment.getAppointmentId();
+            start = appointment.getLocalStart().getTime();
+            end = appointment.getLocalEnd().getTime();
+            for (Resource resource : Resource.values()) {
+                resourceIds[resource.ordinal()] = resource.id.applyAsInt(appointment);
+            }
+        }
+    }
+}
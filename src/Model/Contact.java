@@ -32,6 +32,14 @@ public class Contact {
         setEmail(email);
     }
 
+    /**
+     * Creates a copy of a contact, used to undo local edits
+     * @param other Contact to copy
+     */
+    public Contact(Contact other) {
+        this(other.contactId, other.contactName, other.email);
+    }
+
     /**
      * Sets contact ID
      * @param contactId Contact ID
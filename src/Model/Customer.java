@@ -33,25 +33,25 @@ public class Customer {
      */
     private Date createDate;
     /**
-     * User that customer was created by
+     * Symbol code of user that customer was created by
      */
-    private String createdBy;
+    private int createdBy;
     /**
      * Date/time that customer was last updated by
      */
     private Timestamp lastUpdate;
     /**
-     * User that last updated customer information
+     * Symbol code of user that last updated customer information
      */
-    private String lastUpdatedBy;
+    private int lastUpdatedBy;
     /**
-     * Customer division
+     * Symbol code of customer division
      */
-    private String division;
+    private int division;
     /**
-     *  Customer country
+     * Symbol code of customer country
      */
-    private String country;
+    private int country;
 
     /**
      * Create customer object representing a customer of the consulting agency
@@ -82,6 +82,24 @@ public class Customer {
         setCountry(country);
     }
 
+    /**
+     * Creates a copy of a customer, used to undo local edits
+     * @param other Customer to copy
+     */
+    public Customer(Customer other) {
+        customerId = other.customerId;
+        customerName = other.customerName;
+        address = other.address;
+        postalCode = other.postalCode;
+        phone = other.phone;
+        createDate = other.createDate;
+        createdBy = other.createdBy;
+        lastUpdate = other.lastUpdate;
+        lastUpdatedBy = other.lastUpdatedBy;
+        division = other.division;
+        country = other.country;
+    }
+
     /**
      * Sets customer ID number
      * @param customerId Customer ID
@@ -135,7 +153,7 @@ public class Customer {
      * @param createdBy User that customer was created by
      */
     public void setCreatedBy(String createdBy) {
-        this.createdBy = createdBy;
+        this.createdBy = SymbolTable.intern(createdBy);
     }
 
     /**
@@ -151,7 +169,7 @@ public class Customer {
      * @param lastUpdatedBy User that last updated customer information
      */
     public void setLastUpdatedBy(String lastUpdatedBy) {
-        this.lastUpdatedBy = lastUpdatedBy;
+        this.lastUpdatedBy = SymbolTable.intern(lastUpdatedBy);
     }
 
     /**
@@ -159,7 +177,7 @@ public class Customer {
      * @param division Customer division
      */
     public void setDivision(String division) {
-        this.division = division;
+        this.division = SymbolTable.intern(division);
     }
 
     /**
@@ -167,7 +185,7 @@ public class Customer {
      * @param country Customer country
      */
     public void setCountry(String country) {
-        this.country = country;
+        this.country = SymbolTable.intern(country);
     }
 
     /**
@@ -223,7 +241,7 @@ public class Customer {
      * @return User that customer was created by
      */
     public String getCreatedBy() {
-        return createdBy;
+        return SymbolTable.lookup(createdBy);
     }
 
     /**
@@ -239,7 +257,7 @@ public class Customer {
      * @return User that customer was last updated by
      */
     public String getLastUpdatedBy() {
-        return lastUpdatedBy;
+        return SymbolTable.lookup(lastUpdatedBy);
     }
 
     /**
@@ -247,6 +265,14 @@ public class Customer {
      * @return Division that customer is in
      */
     public String getDivision() {
+        return SymbolTable.lookup(division);
+    }
+
+    /**
+     * Gets symbol code of customer's division, for grouping and comparing
+     * @return Division code
+     */
+    public int getDivisionCode() {
         return division;
     }
 
@@ -255,6 +281,14 @@ public class Customer {
      * @return Country that customer is in
      */
     public String getCountry() {
+        return SymbolTable.lookup(country);
+    }
+
+    /**
+     * Gets symbol code of customer's country, for grouping and comparing
+     * @return Country code
+     */
+    public int getCountryCode() {
         return country;
     }
 }
@@ -1,8 +1,25 @@
 package Model;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 /**
  * Saves local data for user session
  * and local appointment data from database
@@ -28,6 +45,103 @@ public class DataStore {
      * List of all appointments
      */
     private ObservableList<Appointment> allAppointments;
+    /**
+     * List of all users
+     */
+    private ObservableList<User> allUsers;
+    /**
+     * Appointments keyed by appointment ID, kept in sync with list of all appointments
+     */
+    private final IntMap<Appointment> appointmentsById = new IntMap<>();
+    /**
+     * Customers keyed by customer ID, kept in sync with list of all customers
+     */
+    private final IntMap<Customer> customersById = new IntMap<>();
+    /**
+     * Contacts keyed by contact ID, kept in sync with list of all contacts
+     */
+    private final IntMap<Contact> contactsById = new IntMap<>();
+    /**
+     * Appointments ordered by local start, kept in sync with list of all appointments
+     */
+    private final StartIndex startIndex;
+    /**
+     * Column copy of all appointments, for reports, exports, and tables that show every appointment
+     */
+    private final AppointmentColumns appointmentColumns;
+    /**
+     * Each customer's appointments ordered by local start
+     */
+    private final ScheduleIndex customerSchedules;
+    /**
+     * Each contact's appointments ordered by local start
+     */
+    private final ScheduleIndex contactSchedules;
+    /**
+     * Each user's appointments ordered by local start
+     */
+    private final ScheduleIndex userSchedules;
+    /**
+     * Finds overlapping appointments for the same customer, contact, or user
+     */
+    private final ConflictEngine conflictEngine;
+    /**
+     * Finds free meeting times from the conflict engine's booked times
+     */
+    private final SlotFinder slotFinder;
+    /**
+     * Checks batches of proposed appointments against each other and existing ones
+     */
+    private final BatchValidator batchValidator;
+    /**
+     * Busy quarter hours of each customer, contact, and user by day
+     */
+    private final Availability availability;
+    /**
+     * Appointment counts by type and location for the reports screen
+     */
+    private final ReportAggregator reportAggregator;
+    /**
+     * Appointment counts by day, for counts by week, month, and year
+     */
+    private final AppointmentTimeSeries timeSeries;
+    /**
+     * Counts by type, month, location, contact, and country, built on first use and dropped
+     * whenever appointments or customers change
+     */
+    private AppointmentCube appointmentCube;
+    /**
+     * Contact ID/name lookup, kept in sync with list of all contacts
+     */
+    private final NameIndex contactNames = new NameIndex();
+    /**
+     * Customer ID/name lookup, kept in sync with list of all customers
+     */
+    private final NameIndex customerNames = new NameIndex();
+    /**
+     * User ID/name lookup, kept in sync with list of all users
+     */
+    private final NameIndex userNames = new NameIndex();
+    /**
+     * Cached contact/customer/user dropdown choices
+     */
+    private final ReferenceData referenceData;
+    /**
+     * Countries and divisions available to customers
+     */
+    private final Geography geography = new Geography();
+    /**
+     * Milliseconds taken to load each table at startup, in completion order
+     */
+    private final Map<String, Long> loadTimes = new LinkedHashMap<>();
+    /**
+     * Completes once startup data has finished loading
+     */
+    private CompletableFuture<Void> dataLoaded = CompletableFuture.completedFuture(null);
+    /**
+     * Newest Last_Update merged from each table
+     */
+    private final Map<String, Timestamp> watermarks = new ConcurrentHashMap<>();
 
     /**
      * Creates local data store of appointment data from database
@@ -36,6 +150,155 @@ public class DataStore {
         allCustomers = FXCollections.observableArrayList();
         allContacts = FXCollections.observableArrayList();
         allAppointments = FXCollections.observableArrayList();
+        allUsers = FXCollections.observableArrayList();
+        indexIds(allAppointments, appointmentsById, Appointment::getAppointmentId);
+        indexIds(allCustomers, customersById, Customer::getCustomerId);
+        indexIds(allContacts, contactsById, Contact::getId);
+        indexNames(allContacts, contactNames, Contact::getId, Contact::getName);
+        indexNames(allCustomers, customerNames, Customer::getCustomerId, Customer::getCustomerName);
+        indexNames(allUsers, userNames, User::getId, User::getName);
+        referenceData = new ReferenceData(allContacts, allCustomers, allUsers);
+        startIndex = new StartIndex(allAppointments);
+        appointmentColumns = new AppointmentColumns(allAppointments);
+        customerSchedules = new ScheduleIndex(allAppointments, Appointment::getCustomerId);
+        contactSchedules = new ScheduleIndex(allAppointments, Appointment::getContactId);
+        userSchedules = new ScheduleIndex(allAppointments, Appointment::getUserId);
+        conflictEngine = new ConflictEngine(allAppointments);
+        slotFinder = new SlotFinder(conflictEngine);
+        batchValidator = new BatchValidator(conflictEngine);
+        availability = new Availability(allAppointments, conflictEngine);
+        reportAggregator = new ReportAggregator(allAppointments);
+        timeSeries = new AppointmentTimeSeries(allAppointments);
+        // customer edits can move appointments to another country
+        allAppointments.addListener((ListChangeListener<Appointment>) change -> appointmentCube = null);
+        allCustomers.addListener((ListChangeListener<Customer>) change -> appointmentCube = null);
+    }
+
+    /**
+     * Keeps an ID-keyed map in sync with every add, replace, and remove on a list
+     * @param list List of records
+     * @param index Records keyed by ID
+     * @param id Gets ID of a record
+     * @param <T> Record type
+     */
+    private static <T> void indexIds(ObservableList<T> list, IntMap<T> index, ToIntFunction<T> id) {
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                for (T removed : change.getRemoved()) {
+                    // a replaced record may already have been re-keyed by its replacement
+                    index.remove(id.applyAsInt(removed), removed);
+                }
+                for (T added : change.getAddedSubList()) {
+                    index.put(id.applyAsInt(added), added);
+                }
+            }
+        });
+    }
+
+    /**
+     * Keeps an ID/name lookup in sync with every add, replace, and remove on a list
+     * @param list List of records
+     * @param index ID/name lookup for the records
+     * @param id Gets ID of a record
+     * @param name Gets name of a record
+     * @param <T> Record type
+     */
+    private static <T> void indexNames(ObservableList<T> list, NameIndex index, ToIntFunction<T> id, Function<T, String> name) {
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                for (T removed : change.getRemoved()) {
+                    index.remove(id.applyAsInt(removed));
+                }
+                for (T added : change.getAddedSubList()) {
+                    index.put(id.applyAsInt(added), name.apply(added));
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds new records and replaces changed ones in place, matching on ID
+     * @param list List of records
+     * @param changed Records read from the database
+     * @param id Gets ID of a record
+     * @param unchanged Tests whether a stored record already matches the one read
+     * @param <T> Record type
+     */
+    private static <T> void merge(ObservableList<T> list, List<T> changed, ToIntFunction<T> id, BiPredicate<T, T> unchanged) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            positions.put(id.applyAsInt(list.get(i)), i);
+        }
+        List<T> added = new ArrayList<>();
+        for (T record : changed) {
+            Integer position = positions.get(id.applyAsInt(record));
+            if (position == null) {
+                added.add(record);
+            } else if (!unchanged.test(list.get(position), record)) {
+                list.set(position, record);
+            }
+        }
+        list.addAll(added);
+    }
+
+    /**
+     * Removes records that were known locally but no longer exist in the database
+     * @param list List of records
+     * @param known IDs held locally before the database was read
+     * @param existing IDs in the database
+     * @param id Gets ID of a record
+     * @param <T> Record type
+     */
+    private static <T> void reconcile(ObservableList<T> list, Set<Integer> known, Set<Integer> existing, ToIntFunction<T> id) {
+        list.removeIf(record -> {
+            int recordId = id.applyAsInt(record);
+            return known.contains(recordId) && !existing.contains(recordId);
+        });
+    }
+
+    /**
+     * Gets IDs of all records in a list
+     * @param list List of records
+     * @param id Gets ID of a record
+     * @param <T> Record type
+     * @return Set of record IDs
+     */
+    private static <T> Set<Integer> ids(List<T> list, ToIntFunction<T> id) {
+        Set<Integer> ids = new HashSet<>();
+        for (T record : list) {
+            ids.add(id.applyAsInt(record));
+        }
+        return ids;
+    }
+
+    /**
+     * Puts a record back where it was in a list, or at the end if the list has since shrunk
+     * @param list List of records
+     * @param index Former position of record
+     * @param record Record to put back
+     * @param <T> Record type
+     */
+    private static <T> void reinsert(ObservableList<T> list, int index, T record) {
+        if (!list.contains(record)) {
+            list.add(Math.max(0, Math.min(index, list.size())), record);
+        }
+    }
+
+    /**
+     * Swaps a record for an earlier copy of itself
+     * @param list List of records
+     * @param current Record as it is now
+     * @param previous Copy of record before it was changed
+     * @param <T> Record type
+     */
+    private static <T> void revert(ObservableList<T> list, T current, T previous) {
+        int index = list.indexOf(current);
+        if (index >= 0) {
+            list.set(index, previous);
+        }
     }
 
     /**
@@ -68,6 +331,203 @@ public class DataStore {
         }
     }
 
+    /**
+     * Adds user account to list of users
+     * @param newUser New user to add
+     */
+    public void addUserAccount(User newUser) {
+        if (newUser != null) {
+            allUsers.add(newUser);
+        }
+    }
+
+    /**
+     * Refreshes lookups for a contact that was changed in place
+     * @param contact Modified contact
+     */
+    public void updateContact(Contact contact) {
+        int index = allContacts.indexOf(contact);
+        if (index >= 0) {
+            allContacts.set(index, contact);
+        }
+    }
+
+    /**
+     * Refreshes lookups for a customer that was changed in place
+     * @param customer Modified customer
+     */
+    public void updateCustomer(Customer customer) {
+        int index = allCustomers.indexOf(customer);
+        if (index >= 0) {
+            allCustomers.set(index, customer);
+        }
+    }
+
+    /**
+     * Refreshes lookups for an appointment that was changed in place
+     * @param appointment Modified appointment
+     */
+    public void updateAppointment(Appointment appointment) {
+        int index = allAppointments.indexOf(appointment);
+        if (index >= 0) {
+            allAppointments.set(index, appointment);
+        }
+    }
+
+    /**
+     * Puts back an appointment whose removal could not be saved
+     * @param index Former position of appointment
+     * @param appointment Removed appointment
+     */
+    public void reinsertAppointment(int index, Appointment appointment) {
+        reinsert(allAppointments, index, appointment);
+    }
+
+    /**
+     * Puts back a customer whose removal could not be saved
+     * @param index Former position of customer
+     * @param customer Removed customer
+     */
+    public void reinsertCustomer(int index, Customer customer) {
+        reinsert(allCustomers, index, customer);
+    }
+
+    /**
+     * Puts back a contact whose removal could not be saved
+     * @param index Former position of contact
+     * @param contact Removed contact
+     */
+    public void reinsertContact(int index, Contact contact) {
+        reinsert(allContacts, index, contact);
+    }
+
+    /**
+     * Undoes edits to an appointment that could not be saved
+     * @param current Appointment as edited
+     * @param previous Copy of appointment before the edits
+     */
+    public void revertAppointment(Appointment current, Appointment previous) {
+        revert(allAppointments, current, previous);
+    }
+
+    /**
+     * Undoes edits to a customer that could not be saved
+     * @param current Customer as edited
+     * @param previous Copy of customer before the edits
+     */
+    public void revertCustomer(Customer current, Customer previous) {
+        revert(allCustomers, current, previous);
+    }
+
+    /**
+     * Undoes edits to a contact that could not be saved
+     * @param current Contact as edited
+     * @param previous Copy of contact before the edits
+     */
+    public void revertContact(Contact current, Contact previous) {
+        revert(allContacts, current, previous);
+    }
+
+    /**
+     * Adds new appointments and replaces changed ones read from the database
+     * @param changed Appointments added or changed in the database
+     */
+    public void mergeAppointments(List<Appointment> changed) {
+        merge(allAppointments, changed, Appointment::getAppointmentId, (stored, read) -> Objects.equals(stored.getLastUpdate(), read.getLastUpdate()));
+    }
+
+    /**
+     * Adds new customers and replaces changed ones read from the database
+     * @param changed Customers added or changed in the database
+     */
+    public void mergeCustomers(List<Customer> changed) {
+        merge(allCustomers, changed, Customer::getCustomerId, (stored, read) -> Objects.equals(stored.getLastUpdate(), read.getLastUpdate()));
+    }
+
+    /**
+     * Adds new contacts and replaces changed ones read from the database
+     * @param changed Contacts read from the database
+     */
+    public void mergeContacts(List<Contact> changed) {
+        merge(allContacts, changed, Contact::getId, (stored, read) -> Objects.equals(stored.getName(), read.getName()) && Objects.equals(stored.getEmail(), read.getEmail()));
+    }
+
+    /**
+     * Adds new users and replaces renamed ones read from the database
+     * @param changed Users added or changed in the database
+     */
+    public void mergeUsers(List<User> changed) {
+        merge(allUsers, changed, User::getId, (stored, read) -> Objects.equals(stored.getName(), read.getName()));
+    }
+
+    /**
+     * Gets IDs of all appointments
+     * @return Set of appointment IDs
+     */
+    public Set<Integer> getAppointmentIds() {
+        return ids(allAppointments, Appointment::getAppointmentId);
+    }
+
+    /**
+     * Gets IDs of all customers
+     * @return Set of customer IDs
+     */
+    public Set<Integer> getCustomerIds() {
+        return ids(allCustomers, Customer::getCustomerId);
+    }
+
+    /**
+     * Gets IDs of all contacts
+     * @return Set of contact IDs
+     */
+    public Set<Integer> getContactIds() {
+        return ids(allContacts, Contact::getId);
+    }
+
+    /**
+     * Gets IDs of all users
+     * @return Set of user IDs
+     */
+    public Set<Integer> getUserIds() {
+        return ids(allUsers, User::getId);
+    }
+
+    /**
+     * Removes appointments deleted from the database
+     * @param known Appointment IDs held locally before the database was read
+     * @param existing Appointment IDs in the database
+     */
+    public void reconcileAppointments(Set<Integer> known, Set<Integer> existing) {
+        reconcile(allAppointments, known, existing, Appointment::getAppointmentId);
+    }
+
+    /**
+     * Removes customers deleted from the database
+     * @param known Customer IDs held locally before the database was read
+     * @param existing Customer IDs in the database
+     */
+    public void reconcileCustomers(Set<Integer> known, Set<Integer> existing) {
+        reconcile(allCustomers, known, existing, Customer::getCustomerId);
+    }
+
+    /**
+     * Removes contacts deleted from the database
+     * @param known Contact IDs held locally before the database was read
+     * @param existing Contact IDs in the database
+     */
+    public void reconcileContacts(Set<Integer> known, Set<Integer> existing) {
+        reconcile(allContacts, known, existing, Contact::getId);
+    }
+
+    /**
+     * Removes users deleted from the database
+     * @param known User IDs held locally before the database was read
+     * @param existing User IDs in the database
+     */
+    public void reconcileUsers(Set<Integer> known, Set<Integer> existing) {
+        reconcile(allUsers, known, existing, User::getId);
+    }
+
     /**
      * Adds new appointment to list of appointments
      * @param newAppointment New appointment to add
@@ -127,4 +587,276 @@ public class DataStore {
     public ObservableList<Appointment> getAllAppointments() {
         return allAppointments;
     }
+
+    /**
+     * Gets appointments starting in a time range
+     * @param from Start of range, inclusive
+     * @param to End of range, exclusive
+     * @return New list of appointments whose local start is in the range, earliest first
+     */
+    public List<Appointment> getAppointmentsStarting(LocalDateTime from, LocalDateTime to) {
+        return startIndex.between(from, to);
+    }
+
+    /**
+     * Gets live list of appointments starting in a time range, kept current as appointments change
+     * @param from Start of range, inclusive
+     * @param to End of range, exclusive
+     * @return Live range of appointments
+     */
+    public AppointmentRange getAppointmentRange(LocalDateTime from, LocalDateTime to) {
+        return new AppointmentRange(allAppointments, startIndex, from, to);
+    }
+
+    /**
+     * Gets column copy of all appointments
+     * @return Column copy kept in sync with list of all appointments
+     */
+    public AppointmentColumns getAppointmentColumns() {
+        return appointmentColumns;
+    }
+
+    /**
+     * Gets appointments of each customer ordered by start
+     * @return Per-customer schedule index
+     */
+    public ScheduleIndex getCustomerSchedules() {
+        return customerSchedules;
+    }
+
+    /**
+     * Gets appointments of each contact ordered by start
+     * @return Per-contact schedule index
+     */
+    public ScheduleIndex getContactSchedules() {
+        return contactSchedules;
+    }
+
+    /**
+     * Gets appointments of each user ordered by start
+     * @return Per-user schedule index
+     */
+    public ScheduleIndex getUserSchedules() {
+        return userSchedules;
+    }
+
+    /**
+     * Gets engine that finds overlapping appointments
+     * @return Conflict engine
+     */
+    public ConflictEngine getConflictEngine() {
+        return conflictEngine;
+    }
+
+    /**
+     * Gets finder of free meeting times
+     * @return Slot finder
+     */
+    public SlotFinder getSlotFinder() {
+        return slotFinder;
+    }
+
+    /**
+     * Gets validator for bulk scheduling
+     * @return Batch validator
+     */
+    public BatchValidator getBatchValidator() {
+        return batchValidator;
+    }
+
+    /**
+     * Gets busy quarter hours of each customer, contact, and user
+     * @return Availability maps
+     */
+    public Availability getAvailability() {
+        return availability;
+    }
+
+    /**
+     * Gets counts and booked minutes by type, month, location, contact, and customer country.
+     * The cube is built in one parallel pass over the column store the first time it is needed
+     * after appointments or customers change; must be called on the JavaFX thread
+     * @return Appointment cube
+     */
+    public AppointmentCube getAppointmentCube() {
+        if (appointmentCube == null) {
+            appointmentCube = AppointmentCube.build(appointmentColumns, customerId -> {
+                Customer customer = customersById.get(customerId);
+                return customer == null ? SymbolTable.NULL : customer.getCountryCode();
+            });
+        }
+        return appointmentCube;
+    }
+
+    /**
+     * Gets appointment counts for the reports screen
+     * @return Report aggregator
+     */
+    public ReportAggregator getReportAggregator() {
+        return reportAggregator;
+    }
+
+    /**
+     * Gets appointment counts by day, week, month, and year
+     * @return Appointment time series
+     */
+    public AppointmentTimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    /**
+     * Gets list of all users
+     * @return List of all users
+     */
+    public ObservableList<User> getAllUsers() {
+        return allUsers;
+    }
+
+    /**
+     * Gets cached contact/customer/user dropdown choices
+     * @return Reference data cache
+     */
+    public ReferenceData getReferenceData() {
+        return referenceData;
+    }
+
+    /**
+     * Gets countries and divisions available to customers
+     * @return Country/division index
+     */
+    public Geography getGeography() {
+        return geography;
+    }
+
+    /**
+     * Records how long a table took to load at startup
+     * @param table Table name
+     * @param millis Milliseconds taken to read the table
+     */
+    public void addLoadTime(String table, long millis) {
+        loadTimes.put(table, millis);
+    }
+
+    /**
+     * Gets how long each table took to load at startup
+     * @return Read-only milliseconds per table, in completion order
+     */
+    public Map<String, Long> getLoadTimes() {
+        return Collections.unmodifiableMap(loadTimes);
+    }
+
+    /**
+     * Sets progress of startup data load
+     * @param dataLoaded Completes once startup data has finished loading
+     */
+    public void setDataLoaded(CompletableFuture<Void> dataLoaded) {
+        this.dataLoaded = dataLoaded;
+    }
+
+    /**
+     * Gets progress of startup data load
+     * @return Completes once startup data has finished loading
+     */
+    public CompletableFuture<Void> whenDataLoaded() {
+        return dataLoaded;
+    }
+
+    /**
+     * Sets newest Last_Update merged from a table
+     * @param table Table name
+     * @param watermark Newest Last_Update merged
+     */
+    public void setWatermark(String table, Timestamp watermark) {
+        watermarks.put(table, watermark);
+    }
+
+    /**
+     * Gets newest Last_Update merged from a table
+     * @param table Table name
+     * @return Newest Last_Update merged, or the start of the epoch if nothing has been merged
+     */
+    public Timestamp getWatermark(String table) {
+        return watermarks.getOrDefault(table, new Timestamp(0));
+    }
+
+    /**
+     * Gets appointment by ID
+     * @param appointmentId Appointment ID
+     * @return Appointment, or null if no appointment has the ID
+     */
+    public Appointment getAppointment(int appointmentId) {
+        return appointmentsById.get(appointmentId);
+    }
+
+    /**
+     * Gets customer by ID
+     * @param customerId Customer ID
+     * @return Customer, or null if no customer has the ID
+     */
+    public Customer getCustomer(int customerId) {
+        return customersById.get(customerId);
+    }
+
+    /**
+     * Gets contact by ID
+     * @param contactId Contact ID
+     * @return Contact, or null if no contact has the ID
+     */
+    public Contact getContact(int contactId) {
+        return contactsById.get(contactId);
+    }
+
+    /**
+     * Gets ID of contact by name
+     * @param name Contact name
+     * @return Contact ID, or 0 if no contact has the name
+     */
+    public int getContactId(String name) {
+        return contactNames.getId(name);
+    }
+
+    /**
+     * Gets name of contact by ID
+     * @param contactId Contact ID
+     * @return Contact name, or null if no contact has the ID
+     */
+    public String getContactName(int contactId) {
+        return contactNames.getName(contactId);
+    }
+
+    /**
+     * Gets ID of customer by name
+     * @param name Customer name
+     * @return Customer ID, or 0 if no customer has the name
+     */
+    public int getCustomerId(String name) {
+        return customerNames.getId(name);
+    }
+
+    /**
+     * Gets name of customer by ID
+     * @param customerId Customer ID
+     * @return Customer name, or null if no customer has the ID
+     */
+    public String getCustomerName(int customerId) {
+        return customerNames.getName(customerId);
+    }
+
+    /**
+     * Gets ID of user by username
+     * @param name Username
+     * @return User ID, or 0 if no user has the username
+     */
+    public int getUserId(String name) {
+        return userNames.getId(name);
+    }
+
+    /**
+     * Gets username of user by ID
+     * @param userId User ID
+     * @return Username, or null if no user has the ID
+     */
+    public String getUserName(int userId) {
+        return userNames.getName(userId);
+    }
 }
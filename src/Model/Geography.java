@@ -0,0 +1,140 @@
+package Model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Countries and their first-level divisions, loaded once at startup
+ * so the customer forms can fill and filter their dropdowns without a database query
+ */
+public class Geography {
+    /**
+     * Country names in load order
+     */
+    private final ObservableList<String> countries = FXCollections.observableArrayList();
+    /**
+     * Division names in load order
+     */
+    private final ObservableList<String> divisions = FXCollections.observableArrayList();
+    /**
+     * Division names of each country, in load order
+     */
+    private final Map<String, ObservableList<String>> divisionsByCountry = new LinkedHashMap<>();
+    /**
+     * Country of each division, keyed by division name
+     */
+    private final Map<String, String> countryByDivision = new HashMap<>();
+    /**
+     * Two-way lookup between division IDs and names
+     */
+    private final NameIndex divisionNames = new NameIndex();
+
+    /**
+     * Adds a country with no divisions yet
+     * @param country Country name
+     */
+    public void addCountry(String country) {
+        if (!divisionsByCountry.containsKey(country)) {
+            divisionsByCountry.put(country, FXCollections.observableArrayList());
+            countries.add(country);
+        }
+    }
+
+    /**
+     * Adds a first-level division to a country
+     * @param divisionId Division ID
+     * @param division Division name
+     * @param country Country name
+     */
+    public void addDivision(int divisionId, String division, String country) {
+        addCountry(country);
+        divisionsByCountry.get(country).add(division);
+        divisions.add(division);
+        countryByDivision.put(division, country);
+        divisionNames.put(divisionId, division);
+    }
+
+    /**
+     * Adds every country and division of another index, keeping their order
+     * @param other Country/division index to copy from
+     */
+    public void addAll(Geography other) {
+        for (String country : other.countries) {
+            addCountry(country);
+            for (String division : other.divisionsByCountry.get(country)) {
+                addDivision(other.getDivisionId(division), division, country);
+            }
+        }
+    }
+
+    /**
+     * Removes all countries and divisions
+     */
+    public void clear() {
+        countries.clear();
+        divisions.clear();
+        divisionsByCountry.clear();
+        countryByDivision.clear();
+        divisionNames.clear();
+    }
+
+    /**
+     * Gets all country names
+     * @return Read-only list of country names
+     */
+    public ObservableList<String> getCountries() {
+        return FXCollections.unmodifiableObservableList(countries);
+    }
+
+    /**
+     * Gets all division names
+     * @return Read-only list of division names
+     */
+    public ObservableList<String> getDivisions() {
+        return FXCollections.unmodifiableObservableList(divisions);
+    }
+
+    /**
+     * Gets division names in a country
+     * @param country Country name
+     * @return Read-only list of division names, empty if country is unknown
+     */
+    public ObservableList<String> getDivisions(String country) {
+        ObservableList<String> inCountry = divisionsByCountry.get(country);
+        if (inCountry == null) {
+            return FXCollections.emptyObservableList();
+        }
+        return FXCollections.unmodifiableObservableList(inCountry);
+    }
+
+    /**
+     * Gets country a division belongs to
+     * @param division Division name
+     * @return Country name, or null if division is unknown
+     */
+    public String getCountry(String division) {
+        return countryByDivision.get(division);
+    }
+
+    /**
+     * Gets ID of division by name
+     * @param division Division name
+     * @return Division ID, or 0 if division is unknown
+     */
+    public int getDivisionId(String division) {
+        return divisionNames.getId(division);
+    }
+
+    /**
+     * Gets name of division by ID
+     * @param divisionId Division ID
+     * @return Division name, or null if division is unknown
+     */
+    public String getDivisionName(int divisionId) {
+        return divisionNames.getName(divisionId);
+    }
+}
@@ -0,0 +1,176 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int keys to records, used to look records up by primary key.
+ * Keys are stored as primitive ints in one open-addressed table, so lookups
+ * do not box the key or follow a chain of entry objects.
+ * @param <V> Record type
+ */
+public class IntMap<V> {
+    /**
+     * Starting number of slots, always a power of two
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Keys of occupied slots
+     */
+    private int[] keys;
+    /**
+     * Records of occupied slots, null for empty slots
+     */
+    private Object[] values;
+    /**
+     * Number of records held
+     */
+    private int size;
+
+    /**
+     * Creates empty map
+     */
+    public IntMap() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets record by key
+     * @param key Record ID
+     * @return Record, or null if no record has the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a record has a key
+     * @param key Record ID
+     * @return True if a record has the key
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Adds a record, replacing any record with the same key
+     * @param key Record ID
+     * @param value Record
+     */
+    public void put(int key, V value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        // keep at most half the slots full so probe runs stay short
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Removes record with a key, but only if it is the given record
+     * @param key Record ID
+     * @param value Record expected under the key
+     */
+    public void remove(int key, V value) {
+        if (get(key) == value) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Removes record with a key
+     * @param key Record ID
+     */
+    public void remove(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            return;
+        }
+        // shift later records of the probe run back so lookups never stop at the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    /**
+     * Removes all records
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets number of records held
+     * @return Number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves all records into a table with more slots
+     * @param capacity New number of slots, a power of two
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads sequential IDs across the table
+     * @param key Record ID
+     * @return Mixed hash of key
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
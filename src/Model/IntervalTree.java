@@ -0,0 +1,266 @@
+package Model;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Appointment time intervals of one customer, contact, or user, held in a treap ordered by
+ * start time and appointment ID. Each node also keeps the latest end time in its subtree,
+ * so overlap searches skip whole subtrees that end before the searched interval starts.
+ * Not thread-safe; the conflict engine guards it.
+ */
+class IntervalTree {
+    /**
+     * Root node, null when empty
+     */
+    private Node root;
+
+    /**
+     * Adds an appointment interval
+     * @param start Start time in epoch milliseconds
+     * @param end End time in epoch milliseconds
+     * @param appointmentId Appointment ID
+     */
+    void add(long start, long end, int appointmentId) {
+        root = insert(root, new Node(start, end, appointmentId));
+    }
+
+    /**
+     * Removes an appointment interval
+     * @param start Start time the interval was added with
+     * @param appointmentId Appointment ID
+     */
+    void remove(long start, int appointmentId) {
+        root = delete(root, start, appointmentId);
+    }
+
+    /**
+     * Checks whether no intervals are held
+     * @return True if empty
+     */
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Finds intervals overlapping a half-open interval; intervals that only touch at an end do not overlap
+     * @param start Start of interval in epoch milliseconds, inclusive
+     * @param end End of interval in epoch milliseconds, exclusive
+     * @param excludeId Appointment ID to ignore, such as the appointment being edited
+     * @param found List the IDs of overlapping appointments are added to, earliest start first
+     */
+    void overlapping(long start, long end, int excludeId, List<Integer> found) {
+        overlapping(root, start, end, excludeId, found);
+    }
+
+    /**
+     * Finds times and IDs of intervals overlapping a half-open interval
+     * @param start Start of interval in epoch milliseconds, inclusive
+     * @param end End of interval in epoch milliseconds, exclusive
+     * @param found List the {start, end, appointment ID} entries are added to, earliest start first
+     */
+    void times(long start, long end, List<long[]> found) {
+        times(root, start, end, found);
+    }
+
+    /**
+     * Searches a subtree for times and IDs of overlapping intervals
+     * @param node Subtree root
+     * @param start Start of interval, inclusive
+     * @param end End of interval, exclusive
+     * @param found List the {start, end, appointment ID} entries are added to
+     */
+    private static void times(Node node, long start, long end, List<long[]> found) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        times(node.left, start, end, found);
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start) {
+            found.add(new long[] {node.start, node.end, node.appointmentId});
+        }
+        times(node.right, start, end, found);
+    }
+
+    /**
+     * Searches a subtree for overlapping intervals
+     * @param node Subtree root
+     * @param start Start of interval, inclusive
+     * @param end End of interval, exclusive
+     * @param excludeId Appointment ID to ignore
+     * @param found List the IDs of overlapping appointments are added to
+     */
+    private static void overlapping(Node node, long start, long end, int excludeId, List<Integer> found) {
+        // nothing here ends after the interval starts
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        overlapping(node.left, start, end, excludeId, found);
+        // this node and everything to its right start at or after the interval ends
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start && node.appointmentId != excludeId) {
+            found.add(node.appointmentId);
+        }
+        overlapping(node.right, start, end, excludeId, found);
+    }
+
+    /**
+     * Inserts a node into a subtree, rotating it up while its priority is higher than its parent's
+     * @param node Subtree root
+     * @param added Node to insert
+     * @return New subtree root
+     */
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.appointmentId, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Deletes a node from a subtree by rotating it down until it has at most one child
+     * @param node Subtree root
+     * @param start Start time of node to delete
+     * @param appointmentId Appointment ID of node to delete
+     * @return New subtree root
+     */
+    private static Node delete(Node node, long start, int appointmentId) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, appointmentId, node);
+        if (order < 0) {
+            node.left = delete(node.left, start, appointmentId);
+        } else if (order > 0) {
+            node.right = delete(node.right, start, appointmentId);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, start, appointmentId);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, start, appointmentId);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Compares a start time and appointment ID with a node's
+     * @param start Start time
+     * @param appointmentId Appointment ID
+     * @param node Node to compare with
+     * @return Negative, zero, or positive as the key sorts before, with, or after the node
+     */
+    private static int compare(long start, int appointmentId, Node node) {
+        int order = Long.compare(start, node.start);
+        return order != 0 ? order : Integer.compare(appointmentId, node.appointmentId);
+    }
+
+    /**
+     * Rotates a subtree so its left child becomes the root
+     * @param node Subtree root
+     * @return New subtree root
+     */
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    /**
+     * Rotates a subtree so its right child becomes the root
+     * @param node Subtree root
+     * @return New subtree root
+     */
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    /**
+     * One appointment interval
+     */
+    private static class Node {
+        /**
+         * Start time in epoch milliseconds
+         */
+        private final long start;
+        /**
+         * End time in epoch milliseconds
+         */
+        private final long end;
+        /**
+         * Appointment ID
+         */
+        private final int appointmentId;
+        /**
+         * Random heap priority that keeps the tree balanced on average
+         */
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        /**
+         * Latest end time in this subtree
+         */
+        private long maxEnd;
+        /**
+         * Subtree of earlier intervals
+         */
+        private Node left;
+        /**
+         * Subtree of later intervals
+         */
+        private Node right;
+
+        /**
+         * Creates node
+         * @param start Start time in epoch milliseconds
+         * @param end End time in epoch milliseconds
+         * @param appointmentId Appointment ID
+         */
+        Node(long start, long end, int appointmentId) {
+            this.start = start;
+            this.end = end;
+            this.appointmentId = appointmentId;
+            this.maxEnd = end;
+        }
+
+        /**
+         * Recomputes latest end time after children change
+         */
+        void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
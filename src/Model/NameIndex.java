@@ -0,0 +1,71 @@
+package Model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Two-way lookup between record IDs and display names,
+ * used to turn dropdown selections into foreign keys without a database query
+ */
+public class NameIndex {
+    /**
+     * Names keyed by record ID
+     */
+    private final Map<Integer, String> namesById = new HashMap<>();
+    /**
+     * Record IDs keyed by name
+     */
+    private final Map<String, Integer> idsByName = new HashMap<>();
+
+    /**
+     * Adds or renames a record
+     * @param id Record ID
+     * @param name Current name of record
+     */
+    public void put(int id, String name) {
+        remove(id);
+        namesById.put(id, name);
+        if (name != null) {
+            idsByName.put(name, id);
+        }
+    }
+
+    /**
+     * Removes a record
+     * @param id Record ID
+     */
+    public void remove(int id) {
+        String oldName = namesById.remove(id);
+        if (oldName != null) {
+            // only drop the reverse entry if another record has not taken over the name
+            idsByName.remove(oldName, id);
+        }
+    }
+
+    /**
+     * Gets ID of record with a name
+     * @param name Record name
+     * @return Record ID, or 0 if no record has the name
+     */
+    public int getId(String name) {
+        Integer id = name == null ? null : idsByName.get(name);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * Gets name of a record
+     * @param id Record ID
+     * @return Record name, or null if no record has the ID
+     */
+    public String getName(int id) {
+        return namesById.get(id);
+    }
+
+    /**
+     * Removes all records
+     */
+    public void clear() {
+        namesById.clear();
+        idsByName.clear();
+    }
+}
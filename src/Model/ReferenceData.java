@@ -0,0 +1,144 @@
+package Model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cached dropdown choices for contacts, customers, and users.
+ * Each list of names carries a version that is bumped on every insert, update,
+ * or delete of the underlying records, and is only rebuilt when the version
+ * has moved since it was last built.
+ */
+public class ReferenceData {
+    /**
+     * Contact name choices
+     */
+    private final CachedNames<Contact> contactNames;
+    /**
+     * Customer name choices
+     */
+    private final CachedNames<Customer> customerNames;
+    /**
+     * Username choices
+     */
+    private final CachedNames<User> userNames;
+
+    /**
+     * Creates reference data cache over the data store's record lists
+     * @param contacts List of all contacts
+     * @param customers List of all customers
+     * @param users List of all users
+     */
+    public ReferenceData(ObservableList<Contact> contacts, ObservableList<Customer> customers, ObservableList<User> users) {
+        contactNames = new CachedNames<>(contacts, Contact::getName);
+        customerNames = new CachedNames<>(customers, Customer::getCustomerName);
+        userNames = new CachedNames<>(users, User::getName);
+    }
+
+    /**
+     * Gets contact names in list order
+     * @return Read-only list of contact names
+     */
+    public ObservableList<String> getContactNames() {
+        return contactNames.get();
+    }
+
+    /**
+     * Gets customer names in list order
+     * @return Read-only list of customer names
+     */
+    public ObservableList<String> getCustomerNames() {
+        return customerNames.get();
+    }
+
+    /**
+     * Gets usernames in list order
+     * @return Read-only list of usernames
+     */
+    public ObservableList<String> getUserNames() {
+        return userNames.get();
+    }
+
+    /**
+     * Gets number of changes made to contacts
+     * @return Contact data version
+     */
+    public long getContactVersion() {
+        return contactNames.version;
+    }
+
+    /**
+     * Gets number of changes made to customers
+     * @return Customer data version
+     */
+    public long getCustomerVersion() {
+        return customerNames.version;
+    }
+
+    /**
+     * Gets number of changes made to users
+     * @return User data version
+     */
+    public long getUserVersion() {
+        return userNames.version;
+    }
+
+    /**
+     * Names of one kind of record, rebuilt only after the records change
+     * @param <T> Record type
+     */
+    private static class CachedNames<T> {
+        /**
+         * Records the names come from
+         */
+        private final ObservableList<T> source;
+        /**
+         * Gets name of a record
+         */
+        private final Function<T, String> name;
+        /**
+         * Number of changes made to the records
+         */
+        private long version;
+        /**
+         * Version the cached names were built from
+         */
+        private long builtVersion = -1;
+        /**
+         * Cached names
+         */
+        private ObservableList<String> names;
+
+        /**
+         * Creates cached names that are invalidated whenever the records change
+         * @param source Records the names come from
+         * @param name Gets name of a record
+         */
+        CachedNames(ObservableList<T> source, Function<T, String> name) {
+            this.source = source;
+            this.name = name;
+            source.addListener((ListChangeListener<T>) change -> version++);
+        }
+
+        /**
+         * Gets names, rebuilding them if the records changed since the last build
+         * @return Read-only list of names
+         */
+        ObservableList<String> get() {
+            if (builtVersion != version) {
+                List<String> rebuilt = new ArrayList<>(source.size());
+                for (T record : source) {
+                    rebuilt.add(name.apply(record));
+                }
+                names = FXCollections.unmodifiableObservableList(FXCollections.observableList(rebuilt));
+                builtVersion = version;
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package Model;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appointment counts by type and location, kept in sync with the list of all appointments,
+ * so the reports screen reads finished totals instead of recounting every appointment each time it opens.
+ * Each add, edit, or delete only moves the counts of the appointment involved.
+ * Counts by month are kept by AppointmentTimeSeries.
+ */
+public class ReportAggregator {
+    /**
+     * Counts by type symbol code, in order of first appearance
+     */
+    private final Map<Integer, int[]> typeCounts = new LinkedHashMap<>();
+    /**
+     * Counts by location symbol code, in order of first appearance
+     */
+    private final Map<Integer, int[]> locationCounts = new LinkedHashMap<>();
+    /**
+     * Type code and location code each appointment is counted under, so it can be uncounted after being changed in place
+     */
+    private final Map<Appointment, int[]> countedAs = new IdentityHashMap<>();
+
+    /**
+     * Creates report counts over a list of appointments
+     * @param appointments List of all appointments
+     */
+    public ReportAggregator(ObservableList<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+        appointments.addListener((ListChangeListener<Appointment>) change -> {
+            while (change.next()) {
+                for (Appointment removed : change.getRemoved()) {
+                    remove(removed);
+                }
+                for (Appointment added : change.getAddedSubList()) {
+                    add(added);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets appointment counts by type
+     * @return New report row for each type, in order of first appearance
+     */
+    public ObservableList<Report> getTypeReport() {
+        return report(typeCounts);
+    }
+
+    /**
+     * Gets appointment counts by location
+     * @return New report row for each location, in order of first appearance
+     */
+    public ObservableList<Report> getLocationReport() {
+        return report(locationCounts);
+    }
+
+    /**
+     * Makes report rows from counts keyed by symbol code
+     * @param counts Counts by symbol code
+     * @return New report row for each code
+     */
+    private static ObservableList<Report> report(Map<Integer, int[]> counts) {
+        ObservableList<Report> reports = FXCollections.observableArrayList();
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            reports.add(new Report(new ReadOnlyObjectWrapper<>(entry.getValue()[0]),
+                    new ReadOnlyStringWrapper(SymbolTable.lookup(entry.getKey()))));
+        }
+        return reports;
+    }
+
+    /**
+     * Counts an appointment under its current type and location
+     * @param appointment Appointment to add
+     */
+    private void add(Appointment appointment) {
+        int[] counted = {appointment.getTypeCode(), appointment.getLocationCode()};
+        typeCounts.computeIfAbsent(counted[0], k -> new int[1])[0]++;
+        locationCounts.computeIfAbsent(counted[1], k -> new int[1])[0]++;
+        countedAs.put(appointment, counted);
+    }
+
+    /**
+     * Uncounts an appointment from where it was counted
+     * @param appointment Appointment to remove
+     */
+    private void remove(Appointment appointment) {
+        int[] counted = countedAs.remove(appointment);
+        if (counted == null) {
+            return;
+        }
+        decrement(typeCounts, counted[0]);
+        decrement(locationCounts, counted[1]);
+    }
+
+    /**
+     * Lowers a count by one, dropping it once it reaches zero
+     * @param counts Counts by symbol code
+     * @param code Symbol code to lower
+     */
+    private static void decrement(Map<Integer, int[]> counts, int code) {
+        int[] count = counts.get(code);
+        if (--count[0] == 0) {
+            counts.remove(code);
+        }
+    }
+}
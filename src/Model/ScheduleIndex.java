@@ -0,0 +1,155 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Each customer's, contact's, or user's appointments ordered by local start time,
+ * kept in sync with the list of all appointments.
+ * Lookups only touch the appointments of one owner, so they stay fast however many appointments exist in total.
+ */
+public class ScheduleIndex {
+    /**
+     * Gets the customer, contact, or user ID an appointment belongs to
+     */
+    private final ToIntFunction<Appointment> owner;
+    /**
+     * Appointments of each owner, keyed by owner ID
+     */
+    private final IntMap<StartTimes> byOwner = new IntMap<>();
+    /**
+     * Owner and start time each appointment is filed under, so it can be found again after being changed in place
+     */
+    private final Map<Appointment, long[]> filedAt = new IdentityHashMap<>();
+
+    /**
+     * Creates schedule index over a list of appointments
+     * @param appointments List of all appointments
+     * @param owner Gets the customer, contact, or user ID an appointment belongs to
+     */
+    public ScheduleIndex(ObservableList<Appointment> appointments, ToIntFunction<Appointment> owner) {
+        this.owner = owner;
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+        appointments.addListener((ListChangeListener<Appointment>) change -> {
+            while (change.next()) {
+                for (Appointment removed : change.getRemoved()) {
+                    remove(removed);
+                }
+                for (Appointment added : change.getAddedSubList()) {
+                    add(added);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets all appointments of an owner
+     * @param ownerId Customer, contact, or user ID
+     * @return New list of appointments, earliest first
+     */
+    public List<Appointment> all(int ownerId) {
+        List<Appointment> found = new ArrayList<>();
+        StartTimes schedule = byOwner.get(ownerId);
+        if (schedule != null) {
+            schedule.all(found);
+        }
+        return found;
+    }
+
+    /**
+     * Visits all appointments of an owner without copying them into a list.
+     * The owner's appointments must not be added, changed, or removed during the visit.
+     * @param ownerId Customer, contact, or user ID
+     * @param action Called with each appointment, earliest first
+     */
+    public void forEach(int ownerId, Consumer<Appointment> action) {
+        StartTimes schedule = byOwner.get(ownerId);
+        if (schedule != null) {
+            schedule.forEach(action);
+        }
+    }
+
+    /**
+     * Gets appointments of an owner starting in a time range
+     * @param ownerId Customer, contact, or user ID
+     * @param from Start of range, inclusive
+     * @param to End of range, exclusive
+     * @return New list of appointments whose local start is in the range, earliest first
+     */
+    public List<Appointment> between(int ownerId, LocalDateTime from, LocalDateTime to) {
+        List<Appointment> found = new ArrayList<>();
+        StartTimes schedule = byOwner.get(ownerId);
+        if (schedule != null) {
+            schedule.between(Timestamp.valueOf(from).getTime(), Timestamp.valueOf(to).getTime(), found);
+        }
+        return found;
+    }
+
+    /**
+     * Gets next appointment of an owner
+     * @param ownerId Customer, contact, or user ID
+     * @param from Earliest local start to consider
+     * @return Earliest appointment starting at or after the time, or null if there is none
+     */
+    public Appointment next(int ownerId, LocalDateTime from) {
+        StartTimes schedule = byOwner.get(ownerId);
+        return schedule == null ? null : schedule.first(Timestamp.valueOf(from).getTime());
+    }
+
+    /**
+     * Checks whether an owner has any appointments
+     * @param ownerId Customer, contact, or user ID
+     * @return True if the owner has at least one appointment
+     */
+    public boolean hasAppointments(int ownerId) {
+        return byOwner.containsKey(ownerId);
+    }
+
+    /**
+     * Files an appointment under its current owner and local start
+     * @param appointment Appointment to add
+     */
+    private void add(Appointment appointment) {
+        Timestamp localStart = appointment.getLocalStart();
+        if (localStart == null) {
+            return;
+        }
+        int ownerId = owner.applyAsInt(appointment);
+        long start = localStart.getTime();
+        StartTimes schedule = byOwner.get(ownerId);
+        if (schedule == null) {
+            schedule = new StartTimes();
+            byOwner.put(ownerId, schedule);
+        }
+        schedule.add(start, appointment);
+        filedAt.put(appointment, new long[] {ownerId, start});
+    }
+
+    /**
+     * Removes an appointment from where it was filed, dropping its owner's schedule once empty
+     * @param appointment Appointment to remove
+     */
+    private void remove(Appointment appointment) {
+        long[] filed = filedAt.remove(appointment);
+        if (filed == null) {
+            return;
+        }
+        int ownerId = (int) filed[0];
+        StartTimes schedule = byOwner.get(ownerId);
+        schedule.remove(filed[1], appointment);
+        if (schedule.isEmpty()) {
+            byOwner.remove(ownerId);
+        }
+    }
+}
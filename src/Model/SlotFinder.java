@@ -0,0 +1,117 @@
+package Model;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the earliest times a customer, contact, and user are all free for a meeting.
+ * Slots start on the quarter hour and fit inside business hours of 08:00-22:00 America/New_York.
+ * The booked times of the three are read once from the conflict engine's interval trees and
+ * merged, then each business day is walked in order, jumping past booked times rather than
+ * testing every quarter hour against every appointment.
+ */
+public class SlotFinder {
+    /**
+     * Business hours time zone
+     */
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("America/New_York");
+    /**
+     * Business day opening time
+     */
+    private static final LocalTime OPEN = LocalTime.of(8, 0);
+    /**
+     * Business day closing time
+     */
+    private static final LocalTime CLOSE = LocalTime.of(22, 0);
+    /**
+     * Milliseconds slots are aligned to, one quarter hour
+     */
+    private static final long STEP_MILLIS = 15 * 60 * 1000;
+
+    /**
+     * Source of booked times
+     */
+    private final ConflictEngine conflicts;
+
+    /**
+     * Creates slot finder
+     * @param conflicts Conflict engine holding every resource's booked times
+     */
+    public SlotFinder(ConflictEngine conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * Finds earliest free slots
+     * @param customerId Customer ID
+     * @param contactId Contact ID
+     * @param userId User ID
+     * @param duration Length of meeting
+     * @param from Earliest local start to consider
+     * @param to Latest local end to consider
+     * @param count Most slots to return
+     * @return Local start times of free slots, earliest first
+     */
+    public List<LocalDateTime> findSlots(int customerId, int contactId, int userId, Duration duration,
+                                         LocalDateTime from, LocalDateTime to, int count) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        if (duration.isZero() || duration.isNegative() || !from.isBefore(to) || count <= 0) {
+            return slots;
+        }
+        List<long[]> busy = conflicts.busyTimes(customerId, contactId, userId, millis(from), millis(to));
+        long length = duration.toMillis();
+        long fromMillis = millis(from);
+        long toMillis = millis(to);
+        int next = 0;
+        ZoneId localZone = ZoneId.systemDefault();
+        // business days are dated in New York; check each that can overlap the local period
+        LocalDate last = to.atZone(localZone).withZoneSameInstant(BUSINESS_ZONE).toLocalDate();
+        for (LocalDate day = from.atZone(localZone).withZoneSameInstant(BUSINESS_ZONE).toLocalDate();
+             !day.isAfter(last) && slots.size() < count; day = day.plusDays(1)) {
+            long open = millis(ZonedDateTime.of(day, OPEN, BUSINESS_ZONE).withZoneSameInstant(localZone).toLocalDateTime());
+            long close = Math.min(toMillis, millis(ZonedDateTime.of(day, CLOSE, BUSINESS_ZONE).withZoneSameInstant(localZone).toLocalDateTime()));
+            long start = alignUp(Math.max(open, fromMillis));
+            while (slots.size() < count && start + length <= close) {
+                // skip booked times that end before this slot starts
+                while (next < busy.size() && busy.get(next)[1] <= start) {
+                    next++;
+                }
+                if (next < busy.size() && busy.get(next)[0] < start + length) {
+                    // slot overlaps a booking; resume at the first quarter hour after it ends
+                    start = alignUp(busy.get(next)[1]);
+                } else {
+                    slots.add(new Timestamp(start).toLocalDateTime());
+                    start += STEP_MILLIS;
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Rounds a time up to the next quarter hour, leaving times already on one unchanged.
+     * Every time zone offset in use is a whole number of quarter hours, so quarter hours
+     * of epoch time are also quarter hours of local time.
+     * @param time Epoch milliseconds
+     * @return Aligned epoch milliseconds
+     */
+    private static long alignUp(long time) {
+        return Math.floorDiv(time + STEP_MILLIS - 1, STEP_MILLIS) * STEP_MILLIS;
+    }
+
+    /**
+     * Converts a local time to epoch milliseconds, matching how appointment times are indexed
+     * @param time Local time
+     * @return Epoch milliseconds
+     */
+    private static long millis(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime();
+    }
+}
@@ -0,0 +1,83 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointments ordered by local start time, kept in sync with the list of all appointments,
+ * so appointments starting in a time range are found without checking every appointment
+ */
+public class StartIndex {
+    /**
+     * Appointments grouped by local start time, earliest first
+     */
+    private final StartTimes byStart = new StartTimes();
+    /**
+     * Start time each appointment is filed under, so it can be found again after its start is changed in place
+     */
+    private final Map<Appointment, Long> filedAt = new IdentityHashMap<>();
+
+    /**
+     * Creates start time index over a list of appointments
+     * @param appointments List of all appointments
+     */
+    public StartIndex(ObservableList<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+        appointments.addListener((ListChangeListener<Appointment>) change -> {
+            while (change.next()) {
+                for (Appointment removed : change.getRemoved()) {
+                    remove(removed);
+                }
+                for (Appointment added : change.getAddedSubList()) {
+                    add(added);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets appointments starting in a time range, earliest first
+     * @param from Start of range, inclusive
+     * @param to End of range, exclusive
+     * @return New list of appointments whose local start is in the range
+     */
+    public List<Appointment> between(LocalDateTime from, LocalDateTime to) {
+        List<Appointment> found = new ArrayList<>();
+        byStart.between(Timestamp.valueOf(from).getTime(), Timestamp.valueOf(to).getTime(), found);
+        return found;
+    }
+
+    /**
+     * Files an appointment under its current local start
+     * @param appointment Appointment to add
+     */
+    private void add(Appointment appointment) {
+        Timestamp localStart = appointment.getLocalStart();
+        if (localStart == null) {
+            return;
+        }
+        long key = localStart.getTime();
+        byStart.add(key, appointment);
+        filedAt.put(appointment, key);
+    }
+
+    /**
+     * Removes an appointment from where it was filed
+     * @param appointment Appointment to remove
+     */
+    private void remove(Appointment appointment) {
+        Long key = filedAt.remove(appointment);
+        if (key != null) {
+            byStart.remove(key, appointment);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Appointments grouped by start time in epoch milliseconds, earliest first.
+ * Shared by the all-appointment start index and the per-customer, per-contact, and per-user schedules.
+ */
+class StartTimes {
+    /**
+     * Appointments keyed by start time; appointments starting together keep insertion order
+     */
+    private final NavigableMap<Long, List<Appointment>> byStart = new TreeMap<>();
+    /**
+     * Number of appointments held
+     */
+    private int size;
+
+    /**
+     * Adds an appointment under a start time
+     * @param start Start time in epoch milliseconds
+     * @param appointment Appointment to add
+     */
+    void add(long start, Appointment appointment) {
+        byStart.computeIfAbsent(start, k -> new ArrayList<>(1)).add(appointment);
+        size++;
+    }
+
+    /**
+     * Removes an appointment from under a start time
+     * @param start Start time the appointment was added under
+     * @param appointment Appointment to remove
+     */
+    void remove(long start, Appointment appointment) {
+        List<Appointment> sameStart = byStart.get(start);
+        if (sameStart == null) {
+            return;
+        }
+        for (int i = 0; i < sameStart.size(); i++) {
+            if (sameStart.get(i) == appointment) {
+                sameStart.remove(i);
+                size--;
+                break;
+            }
+        }
+        if (sameStart.isEmpty()) {
+            byStart.remove(start);
+        }
+    }
+
+    /**
+     * Checks whether no appointments are held
+     * @return True if empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets appointments starting in a time range
+     * @param from Start of range in epoch milliseconds, inclusive
+     * @param to End of range in epoch milliseconds, exclusive
+     * @param found List the appointments are added to, earliest first
+     */
+    void between(long from, long to, List<Appointment> found) {
+        if (from >= to) {
+            return;
+        }
+        for (List<Appointment> sameStart : byStart.subMap(from, true, to, false).values()) {
+            found.addAll(sameStart);
+        }
+    }
+
+    /**
+     * Visits all appointments without copying them
+     * @param action Called with each appointment, earliest first
+     */
+    void forEach(Consumer<Appointment> action) {
+        for (List<Appointment> sameStart : byStart.values()) {
+            sameStart.forEach(action);
+        }
+    }
+
+    /**
+     * Gets earliest appointment starting at or after a time
+     * @param from Time in epoch milliseconds
+     * @return Earliest appointment, or null if none start at or after the time
+     */
+    Appointment first(long from) {
+        Map.Entry<Long, List<Appointment>> entry = byStart.ceilingEntry(from);
+        return entry == null ? null : entry.getValue().get(0);
+    }
+
+    /**
+     * Gets all appointments
+     * @param found List the appointments are added to, earliest first
+     */
+    void all(List<Appointment> found) {
+        for (List<Appointment> sameStart : byStart.values()) {
+            found.addAll(sameStart);
+        }
+    }
+}
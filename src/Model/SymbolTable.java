@@ -0,0 +1,87 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers the few distinct values of repeated text fields, such as appointment types and locations
+ * and customer divisions and countries, shared by every record in the application.
+ * Records keep the int code instead of their own copy of the text, so equal values are stored once
+ * and grouping, filtering, and equality checks compare ints. Codes are never reused or removed.
+ * Safe to use from loader threads while the JavaFX thread reads.
+ */
+public final class SymbolTable {
+    /**
+     * Code of a missing value
+     */
+    public static final int NULL = -1;
+
+    /**
+     * Codes by value
+     */
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    /**
+     * Values by code; replaced, never changed in place, when it grows
+     */
+    private static volatile String[] symbols = new String[64];
+    /**
+     * Number of values numbered, guarded by the class lock
+     */
+    private static int count;
+
+    /**
+     * Not instantiated; all methods are static
+     */
+    private SymbolTable() {
+    }
+
+    /**
+     * Gets code of a value, numbering it if it is new
+     * @param value Text value, may be null
+     * @return Code of value, or NULL for null
+     */
+    public static int intern(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (SymbolTable.class) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = symbols;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+            }
+            // store the value before publishing its code, so any thread that sees the code can read it
+            current[count] = value;
+            symbols = current;
+            codes.put(value, count);
+            return count++;
+        }
+    }
+
+    /**
+     * Gets value of a code
+     * @param code Code returned by intern
+     * @return Text value, or null for NULL
+     */
+    public static String lookup(int code) {
+        return code == NULL ? null : symbols[code];
+    }
+
+    /**
+     * Gets number of values numbered, one more than the highest code
+     * @return Number of codes
+     */
+    public static int size() {
+        synchronized (SymbolTable.class) {
+            return count;
+        }
+    }
+}
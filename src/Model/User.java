@@ -0,0 +1,60 @@
+package Model;
+/**
+ * Represents a user of the scheduling application.
+ * A user can schedule appointments with many different
+ * customers and contacts.
+ */
+public class User {
+    /**
+     * User ID
+     */
+    private int userId;
+    /**
+     * Username of user
+     */
+    private String userName;
+
+    /**
+     * Creates a user object to represent a user of the
+     * scheduling application
+     * @param userId User ID
+     * @param userName Username of user
+     */
+    public User(int userId, String userName) {
+        super();
+        setId(userId);
+        setName(userName);
+    }
+
+    /**
+     * Sets user ID
+     * @param userId User ID
+     */
+    public void setId(int userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Sets username
+     * @param userName Username of user
+     */
+    public void setName(String userName) {
+        this.userName = userName;
+    }
+
+    /**
+     * Gets user ID
+     * @return User ID
+     */
+    public int getId() {
+        return userId;
+    }
+
+    /**
+     * Gets username
+     * @return Username of user
+     */
+    public String getName() {
+        return userName;
+    }
+}
@@ -0,0 +1,558 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of database connections.
+ * Connections are borrowed as wrapped handles whose close() returns the
+ * physical connection to the pool instead of closing it, so callers keep
+ * using try-with-resources exactly as they would with a plain connection.
+ */
+public class ConnectionPool {
+    /**
+     * Logger for leak and eviction warnings
+     */
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    /**
+     * Connections used within this window are handed out again without a validation round trip
+     */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    /**
+     * Seconds to wait for a validation round trip before treating a connection as broken
+     */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    /**
+     * Connection url
+     */
+    private final String url;
+    /**
+     * Database user
+     */
+    private final String user;
+    /**
+     * Database password
+     */
+    private final String password;
+    /**
+     * Maximum number of physical connections open at once
+     */
+    private final int maxSize;
+    /**
+     * Time an unused connection may sit idle before it is closed
+     */
+    private final long idleTimeoutMillis;
+    /**
+     * Time a connection may stay borrowed before it is reported as a possible leak
+     */
+    private final long leakThresholdMillis;
+    /**
+     * Time a caller waits for a free connection before the borrow fails
+     */
+    private final long borrowTimeoutMillis;
+    /**
+     * One permit per connection that may still be borrowed
+     */
+    private final Semaphore permits;
+    /**
+     * Idle connections, most recently returned first
+     */
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    /**
+     * Connections currently lent out
+     */
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    /**
+     * Background task runner for idle eviction and leak detection
+     */
+    private final ScheduledExecutorService housekeeper;
+    /**
+     * Number of successful borrows
+     */
+    private final AtomicLong borrowCount = new AtomicLong();
+    /**
+     * Total time callers spent waiting for a free connection
+     */
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    /**
+     * Longest time a single caller waited for a free connection
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    /**
+     * Number of borrows that gave up waiting
+     */
+    private final AtomicLong timeoutCount = new AtomicLong();
+    /**
+     * Number of physical connections opened
+     */
+    private final AtomicLong createdCount = new AtomicLong();
+    /**
+     * Number of physical connections closed for being idle or broken
+     */
+    private final AtomicLong evictedCount = new AtomicLong();
+    /**
+     * Number of borrows reported as possible leaks
+     */
+    private final AtomicLong leakCount = new AtomicLong();
+    /**
+     * Whether the pool has been shut down
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a connection pool. Connections are opened lazily on first borrow.
+     * @param url Connection url
+     * @param user Database user
+     * @param password Database password
+     * @param maxSize Maximum number of physical connections open at once
+     * @param idleTimeoutMillis Time an unused connection may sit idle before it is closed
+     * @param leakThresholdMillis Time a connection may stay borrowed before it is reported, 0 to disable
+     * @param borrowTimeoutMillis Time a caller waits for a free connection before the borrow fails
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, long idleTimeoutMillis, long leakThresholdMillis, long borrowTimeoutMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis > 0 ? leakThresholdMillis : idleTimeoutMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to free up.
+     * Closing the returned connection gives it back to the pool.
+     * @return Borrowed database connection
+     * @throws SQLException Pool is closed, timed out waiting, or fails to open a connection
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+                createdCount.incrementAndGet();
+            }
+            pooled.lease(leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null);
+            borrowed.add(pooled);
+            borrowCount.incrementAndGet();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection that passes validation,
+     * closing any that fail along the way
+     * @return Valid idle connection, or null if none are idle
+     */
+    private PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            if (pooled.isValid()) {
+                return pooled;
+            }
+            evictedCount.incrementAndGet();
+            pooled.destroy();
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the idle set, or closes it if it is broken or the pool is closed
+     * @param pooled Connection being returned
+     */
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || !pooled.reset()) {
+                pooled.destroy();
+            } else {
+                synchronized (idle) {
+                    idle.addFirst(pooled);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes connections idle longer than the idle timeout and reports connections
+     * borrowed longer than the leak threshold
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastUsed >= idleTimeoutMillis) {
+                    it.remove();
+                    evictedCount.incrementAndGet();
+                    pooled.destroy();
+                }
+            }
+        }
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt >= leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    LOGGER.log(Level.WARNING, "Connection held for " + (now - pooled.borrowedAt) + " ms without being returned to the pool", pooled.borrowSite);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a borrow wait to the wait-time metrics
+     * @param waitNanos Time spent waiting for a permit
+     */
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows.
+     * Borrowed connections are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (PooledConnection pooled : idle) {
+                pooled.destroy();
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * Gets maximum number of physical connections
+     * @return Pool size limit
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets number of connections currently borrowed
+     * @return Borrowed connection count
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Gets number of connections currently idle in the pool
+     * @return Idle connection count
+     */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Gets number of successful borrows
+     * @return Borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Gets average time callers waited for a free connection
+     * @return Average borrow wait in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get() + timeoutCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    /**
+     * Gets longest time a caller waited for a free connection
+     * @return Maximum borrow wait in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Gets number of borrows that timed out
+     * @return Borrow timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Gets number of physical connections opened
+     * @return Created connection count
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Gets number of physical connections closed for being idle or broken
+     * @return Evicted connection count
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Gets number of borrows reported as possible leaks
+     * @return Leak count
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * Gets prepared statements cached on the physical connection behind a borrowed handle.
+     * Only the current borrower may use the returned map.
+     * @param handle Connection borrowed from this pool
+     * @return Prepared statements keyed by named query
+     */
+    Map<Query, PreparedStatement> statementCache(Connection handle) {
+        if (Proxy.isProxyClass(handle.getClass()) && Proxy.getInvocationHandler(handle) instanceof Handle) {
+            Handle h = (Handle) Proxy.getInvocationHandler(handle);
+            if (h.pool() == this) {
+                return h.pooled.statements;
+            }
+        }
+        throw new IllegalArgumentException("Connection was not borrowed from this pool");
+    }
+
+    /**
+     * Summarizes pool usage for logging
+     * @return Pool metrics in text format
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, max=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, timeouts=%d, created=%d, evicted=%d, leaks=%d]",
+                getActiveCount(), getIdleCount(), maxSize, getBorrowCount(), getAverageWaitMillis(), getMaxWaitMillis(),
+                getTimeoutCount(), getCreatedCount(), getEvictedCount(), getLeakCount());
+    }
+
+    /**
+     * Physical connection owned by the pool along with its lease bookkeeping
+     */
+    private class PooledConnection {
+        /**
+         * Underlying database connection
+         */
+        private final Connection physical;
+        /**
+         * Prepared statements kept open on this connection for reuse across borrows
+         */
+        private final Map<Query, PreparedStatement> statements = new EnumMap<>(Query.class);
+        /**
+         * Time the connection was last returned or validated
+         */
+        private volatile long lastUsed = System.currentTimeMillis();
+        /**
+         * Time of the current borrow
+         */
+        private volatile long borrowedAt;
+        /**
+         * Stack trace of the current borrow, kept for leak reports
+         */
+        private volatile Throwable borrowSite;
+        /**
+         * Whether the current borrow has already been reported as a leak
+         */
+        private volatile boolean leakReported;
+
+        /**
+         * Wraps a newly opened physical connection
+         * @param physical Underlying database connection
+         */
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Marks the connection as borrowed
+         * @param site Stack trace of the borrowing caller, or null when leak detection is off
+         */
+        void lease(Throwable site) {
+            borrowedAt = System.currentTimeMillis();
+            borrowSite = site;
+            leakReported = false;
+        }
+
+        /**
+         * Checks the connection is still usable, skipping the round trip if it was used very recently
+         * @return True if the connection can be handed out
+         */
+        boolean isValid() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (System.currentTimeMillis() - lastUsed < VALIDATION_BYPASS_MILLIS) {
+                    return true;
+                }
+                return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Restores default session state after a borrow
+         * @return True if the connection can be reused
+         */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                lastUsed = System.currentTimeMillis();
+                borrowSite = null;
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Closes the physical connection
+         */
+        void destroy() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Failed to close pooled connection", e);
+            }
+        }
+
+        /**
+         * Creates a single-use handle for the current borrow
+         * @return Connection handle that returns to the pool when closed
+         */
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handle(this));
+        }
+    }
+
+    /**
+     * Forwards calls to the pooled connection until the borrower closes it
+     */
+    private class Handle implements InvocationHandler {
+        /**
+         * Connection lent out through this handle
+         */
+        private final PooledConnection pooled;
+        /**
+         * Whether the borrower has closed this handle
+         */
+        private boolean returned;
+
+        /**
+         * Creates handle for a borrowed connection
+         * @param pooled Connection lent out through this handle
+         */
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        /**
+         * Gets pool that lent out this handle
+         * @return Owning connection pool
+         */
+        ConnectionPool pool() {
+            return ConnectionPool.this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.physical;
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
@@ -15,25 +14,55 @@ public class DBConnect {
     /** Database name */
     private static final String db_name = "WJ06mc0";
     /** Connection url built from database name */
-    private static final String db_url = "jdbc:mysql://wgudb.ucertify.com/"+db_name+"?profileSQL=true";
-    /** Database connection */
-    public static Connection conn;
+    private static final String db_url = "jdbc:mysql://wgudb.ucertify.com/"+db_name+"?profileSQL=true&useServerPrepStmts=true&useCursorFetch=true&rewriteBatchedStatements=true";
+    /** Maximum number of open database connections */
+    private static final int pool_size = 8;
+    /** Idle connections are closed after this many milliseconds */
+    private static final long idle_timeout = 5 * 60 * 1000;
+    /** Connections held longer than this many milliseconds are reported as leaks */
+    private static final long leak_threshold = 30 * 1000;
+    /** Borrowers give up after waiting this many milliseconds for a free connection */
+    private static final long borrow_timeout = 10 * 1000;
+    /** Shared pool of database connections */
+    private static final ConnectionPool pool = new ConnectionPool(db_url, user, password, pool_size, idle_timeout, leak_threshold, borrow_timeout);
+    /** Longest time to wait at shutdown for queued writes to reach the database */
+    private static final long write_drain_timeout = 15 * 1000;
+    /** Shared queue of writes sent to the database in the background */
+    private static final WriteBehindQueue writeQueue = new WriteBehindQueue();
 
     /**
-     * Creates a connection with the WGU database
+     * Borrows a connection to the WGU database from the connection pool.
+     * Closing the connection returns it to the pool.
      * @return A database connection to WGU database
      * @throws SQLException Fails to get database connection
      */
     public static Connection getConn() throws SQLException {
-        conn = DriverManager.getConnection(db_url, user, password);
-        return conn;
+        return pool.borrow();
     }
 
     /**
-     * Closes database connection
-     * @throws SQLException Fails to close database connection
+     * Gets shared connection pool, for usage metrics
+     * @return Database connection pool
      */
-    public static void close() throws SQLException {
-        conn.close();
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Gets shared queue of writes sent to the database in the background
+     * @return Write-behind queue
+     */
+    public static WriteBehindQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    /**
+     * Sends queued writes, then closes all pooled database connections
+     * @return True if every queued write reached the database or was undone locally
+     */
+    public static boolean close() {
+        boolean drained = writeQueue.close(write_drain_timeout);
+        pool.close();
+        return drained;
     }
 }
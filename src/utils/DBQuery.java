@@ -0,0 +1,131 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runs named queries on pooled connections, reusing the prepared form of each
+ * query for as long as its connection stays in the pool.
+ * With server-side prepared statements enabled, a reused statement skips the
+ * parse and plan steps on the database server.
+ */
+public class DBQuery {
+    /** Rows fetched from the server at a time for streamed queries */
+    private static final int FETCH_ROWS = 1000;
+    /** Statement cache hits per query, indexed by ordinal */
+    private static final AtomicLongArray hits = new AtomicLongArray(Query.values().length);
+    /** Statement cache misses per query, indexed by ordinal */
+    private static final AtomicLongArray misses = new AtomicLongArray(Query.values().length);
+
+    /**
+     * Gets the prepared statement for a named query on a borrowed connection,
+     * preparing it on first use. The statement stays owned by the connection
+     * and must not be closed by the caller.
+     * @param conn Connection borrowed from the connection pool
+     * @param query Named query to prepare
+     * @return Prepared statement with parameters cleared
+     * @throws SQLException Fails to prepare statement
+     */
+    public static PreparedStatement prepare(Connection conn, Query query) throws SQLException {
+        Map<Query, PreparedStatement> cache = DBConnect.getPool().statementCache(conn);
+        PreparedStatement ps = cache.get(query);
+        if (ps != null && !ps.isClosed()) {
+            hits.incrementAndGet(query.ordinal());
+            ps.clearParameters();
+            return ps;
+        }
+        misses.incrementAndGet(query.ordinal());
+        ps = conn.prepareStatement(query.getSql());
+        if (query.isStreamed()) {
+            // with cursor fetch enabled, rows arrive FETCH_ROWS at a time instead of all at once
+            ps.setFetchSize(FETCH_ROWS);
+        }
+        cache.put(query, ps);
+        return ps;
+    }
+
+    /**
+     * Runs a named select query with the given parameter values
+     * @param conn Connection borrowed from the connection pool
+     * @param query Named query to run
+     * @param params Values for the query placeholders, in order
+     * @return Query results, to be closed by the caller
+     * @throws SQLException Fails to run query
+     */
+    public static ResultSet executeQuery(Connection conn, Query query, Object... params) throws SQLException {
+        PreparedStatement ps = prepare(conn, query);
+        bind(ps, params);
+        return ps.executeQuery();
+    }
+
+    /**
+     * Runs a named insert, update, or delete with the given parameter values
+     * @param conn Connection borrowed from the connection pool
+     * @param query Named statement to run
+     * @param params Values for the statement placeholders, in order
+     * @return Number of rows changed
+     * @throws SQLException Fails to run statement
+     */
+    public static int executeUpdate(Connection conn, Query query, Object... params) throws SQLException {
+        PreparedStatement ps = prepare(conn, query);
+        bind(ps, params);
+        return ps.executeUpdate();
+    }
+
+    /**
+     * Binds values to statement placeholders
+     * @param ps Prepared statement
+     * @param params Values for the statement placeholders, in order
+     * @throws SQLException Fails to bind a value
+     */
+    public static void bind(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Gets share of statement lookups for a query served from the cache
+     * @param query Named query
+     * @return Hit ratio between 0 and 1
+     */
+    public static double getHitRatio(Query query) {
+        long h = hits.get(query.ordinal());
+        long total = h + misses.get(query.ordinal());
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Gets share of all statement lookups served from the cache
+     * @return Hit ratio between 0 and 1
+     */
+    public static double getHitRatio() {
+        long h = 0;
+        long total = 0;
+        for (int i = 0; i < hits.length(); i++) {
+            h += hits.get(i);
+            total += hits.get(i) + misses.get(i);
+        }
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Summarizes statement cache hit ratios for logging
+     * @return Overall and per-query hit ratios in text format
+     */
+    public static String getStats() {
+        StringBuilder stats = new StringBuilder(String.format("Statement cache hit ratio %.1f%%", getHitRatio() * 100));
+        for (Query query : Query.values()) {
+            long h = hits.get(query.ordinal());
+            long m = misses.get(query.ordinal());
+            if (h + m > 0) {
+                stats.append(String.format("%n  %s: %d hits, %d misses (%.1f%%)", query, h, m, getHitRatio(query) * 100));
+            }
+        }
+        return stats.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats appointment times for display in the user's language.
+ * Text is only made when asked for, such as when a table cell is drawn, and recent results are
+ * kept in a bounded cache keyed by epoch minute, time zone, and locale, so scrolling and redrawing
+ * do not format the same time twice. The pattern is the datetime_pattern key of the locale's resource bundle.
+ */
+public final class DisplayTimes {
+    /**
+     * Most formatted times kept
+     */
+    private static final int CACHE_SIZE = 4096;
+    /**
+     * Milliseconds in a minute
+     */
+    private static final long MINUTE_MILLIS = 60 * 1000;
+
+    /**
+     * Formatter of each locale, built from its resource bundle
+     */
+    private static final Map<Locale, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+    /**
+     * Recently formatted times, least recently used first
+     */
+    private static final Map<Key, String> cache = new LinkedHashMap<Key, String>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Not instantiated; all methods are static
+     */
+    private DisplayTimes() {
+    }
+
+    /**
+     * Formats a local time for the default locale
+     * @param time Local date/time
+     * @return Formatted time, or null if time is null
+     */
+    public static String format(Timestamp time) {
+        return time == null ? null : format(time.getTime(), ZoneId.systemDefault(), Locale.getDefault());
+    }
+
+    /**
+     * Formats a time for a locale
+     * @param millis Epoch milliseconds
+     * @param zone Time zone to show the time in
+     * @param locale Locale whose pattern and names are used
+     * @return Formatted time
+     */
+    public static String format(long millis, ZoneId zone, Locale locale) {
+        DateTimeFormatter formatter = formatters.computeIfAbsent(locale, DisplayTimes::formatter);
+        if (Math.floorMod(millis, MINUTE_MILLIS) != 0) {
+            // only whole minutes are cached; anything else keeps its seconds
+            return formatter.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone));
+        }
+        Key key = new Key(millis / MINUTE_MILLIS, zone, locale);
+        synchronized (cache) {
+            String text = cache.get(key);
+            if (text == null) {
+                text = formatter.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone));
+                cache.put(key, text);
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Builds formatter from a locale's resource bundle
+     * @param locale Locale
+     * @return Formatter for the locale's date/time pattern
+     */
+    private static DateTimeFormatter formatter(Locale locale) {
+        String pattern = ResourceBundle.getBundle("language_files/rb", locale).getString("datetime_pattern");
+        return DateTimeFormatter.ofPattern(pattern, locale);
+    }
+
+    /**
+     * Cache key of a formatted time
+     */
+    private static final class Key {
+        /**
+         * Epoch minute
+         */
+        private final long minute;
+        /**
+         * Time zone shown
+         */
+        private final ZoneId zone;
+        /**
+         * Locale used
+         */
+        private final Locale locale;
+
+        /**
+         * Creates key
+         * @param minute Epoch minute
+         * @param zone Time zone shown
+         * @param locale Locale used
+         */
+        Key(long minute, ZoneId zone, Locale locale) {
+            this.minute = minute;
+            this.zone = zone;
+            this.locale = locale;
+        }
+
+        /**
+         * Checks whether another key is for the same minute, zone, and locale
+         * @param o Object to compare
+         * @return True if equal
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return minute == other.minute && zone.equals(other.zone) && locale.equals(other.locale);
+        }
+
+        /**
+         * Gets hash of minute, zone, and locale
+         * @return Hash code
+         */
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(minute) * 31 + zone.hashCode()) * 31 + locale.hashCode();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package utils;
+
+/**
+ * Named, parameterized SQL statements used by the application.
+ * Values are always bound through placeholders so the prepared form of each
+ * statement can be reused on a connection.
+ */
+public enum Query {
+    /** All customers with their division and country names */
+    LOAD_CUSTOMERS("SELECT c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Create_Date, c.Created_By, c.Last_Update, c.Last_Updated_By, d.Division, n.Country FROM customers c JOIN first_level_divisions d ON (c.Division_ID = d.Division_ID) JOIN countries n ON (d.COUNTRY_ID = n.Country_ID)", true),
+    /** All appointments */
+    LOAD_APPOINTMENTS("SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID FROM appointments", true),
+    /** All contacts */
+    LOAD_CONTACTS("SELECT Contact_ID, Contact_Name, Email FROM contacts"),
+    /** Appointments added or changed at or after a time */
+    APPOINTMENTS_CHANGED_SINCE("SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID FROM appointments WHERE Last_Update >= ?", true),
+    /** Customers added or changed at or after a time, with their division and country names */
+    CUSTOMERS_CHANGED_SINCE("SELECT c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Create_Date, c.Created_By, c.Last_Update, c.Last_Updated_By, d.Division, n.Country FROM customers c JOIN first_level_divisions d ON (c.Division_ID = d.Division_ID) JOIN countries n ON (d.COUNTRY_ID = n.Country_ID) WHERE c.Last_Update >= ?", true),
+    /** User names added or changed at or after a time */
+    USERS_CHANGED_SINCE("SELECT User_ID, User_Name, Last_Update FROM users WHERE Last_Update >= ?"),
+    /** All appointment IDs */
+    APPOINTMENT_IDS("SELECT Appointment_ID FROM appointments", true),
+    /** All customer IDs */
+    CUSTOMER_IDS("SELECT Customer_ID FROM customers", true),
+    /** All user IDs */
+    USER_IDS("SELECT User_ID FROM users"),
+    /** All user names */
+    USER_NAMES("SELECT User_ID, User_Name FROM users"),
+    /** Credentials of a user by user name */
+    USER_LOGIN("SELECT User_Name, Password FROM users WHERE User_Name = ?"),
+    /** All countries with their divisions, countries without divisions included once with null division */
+    LOAD_GEOGRAPHY("SELECT c.Country, d.Division_ID, d.Division FROM countries c LEFT JOIN first_level_divisions d ON (d.COUNTRY_ID = c.Country_ID) ORDER BY c.Country_ID, d.Division_ID"),
+    /** Number of appointments */
+    APPOINTMENT_COUNT("SELECT COUNT(*) FROM appointments"),
+    /** Appointment counts by exact type, so names differing only in case, accents, or trailing spaces stay apart */
+    REPORT_BY_TYPE("SELECT MIN(Type), COUNT(*) FROM appointments GROUP BY BINARY Type"),
+    /** Appointment counts by exact location, so names differing only in case, accents, or trailing spaces stay apart */
+    REPORT_BY_LOCATION("SELECT MIN(Location), COUNT(*) FROM appointments GROUP BY BINARY Location"),
+    /**
+     * Appointment counts by quarter hour of start, numbered from the epoch in UTC; UNIX_TIMESTAMP reads the stored
+     * start in the session time zone, as the driver does, so the client can fold quarter hours into its own local months
+     */
+    REPORT_BY_QUARTER_HOUR("SELECT UNIX_TIMESTAMP(Start) DIV 900, COUNT(*) FROM appointments WHERE Start IS NOT NULL GROUP BY UNIX_TIMESTAMP(Start) DIV 900"),
+    /** Adds an appointment */
+    INSERT_APPOINTMENT("INSERT INTO appointments VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?,?)"),
+    /** Updates an appointment by ID */
+    UPDATE_APPOINTMENT("UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Last_Update = ?, Last_Updated_By = ?, Start = ?, End = ?, Contact_ID = ?, Customer_ID = ?, User_ID = ? WHERE Appointment_ID = ?"),
+    /** Removes an appointment by ID */
+    DELETE_APPOINTMENT("DELETE FROM appointments WHERE Appointment_ID = ?"),
+    /** Adds a customer */
+    INSERT_CUSTOMER("INSERT INTO customers VALUES(?,?,?,?,?,?,?,?,?,?)"),
+    /** Updates a customer by ID */
+    UPDATE_CUSTOMER("UPDATE customers SET Customer_Name = ?, ADDRESS = ?, Phone = ?, Postal_Code = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?"),
+    /** Removes a customer by ID */
+    DELETE_CUSTOMER("DELETE FROM customers WHERE Customer_ID = ?"),
+    /** Adds a contact */
+    INSERT_CONTACT("INSERT INTO contacts VALUES(?,?,?)"),
+    /** Updates a contact by ID */
+    UPDATE_CONTACT("UPDATE contacts SET Contact_Name = ?, Email = ? WHERE Contact_ID = ?"),
+    /** Removes a contact by ID */
+    DELETE_CONTACT("DELETE FROM contacts WHERE Contact_ID = ?");
+
+    /**
+     * Statement text with ? placeholders
+     */
+    private final String sql;
+    /**
+     * Whether results are large enough to be fetched from the server in chunks
+     */
+    private final boolean streamed;
+
+    /**
+     * Creates named statement whose results are read all at once
+     * @param sql Statement text with ? placeholders
+     */
+    Query(String sql) {
+        this(sql, false);
+    }
+
+    /**
+     * Creates named statement
+     * @param sql Statement text with ? placeholders
+     * @param streamed Whether results are large enough to be fetched from the server in chunks
+     */
+    Query(String sql, boolean streamed) {
+        this.sql = sql;
+        this.streamed = streamed;
+    }
+
+    /**
+     * Gets statement text
+     * @return Statement text with ? placeholders
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets whether results are fetched from the server in chunks
+     * @return True if results are streamed with a fetch size
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+}
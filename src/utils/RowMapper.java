@@ -0,0 +1,19 @@
+package utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds one record from the current row of a query result
+ * @param <T> Record type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Builds record from current row
+     * @param rs Query results positioned on a row
+     * @return Record built from row
+     * @throws SQLException Fails to read a column
+     */
+    T map(ResultSet rs) throws SQLException;
+}
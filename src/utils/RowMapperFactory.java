@@ -0,0 +1,21 @@
+package utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Creates row mappers bound to one query result.
+ * Column positions are looked up by label once when binding,
+ * so each row is then read by position.
+ * @param <T> Record type
+ */
+@FunctionalInterface
+public interface RowMapperFactory<T> {
+    /**
+     * Looks up column positions in a query result and returns a mapper that reads rows by position
+     * @param rs Query results, before the first row
+     * @return Row mapper for the query results
+     * @throws SQLException A needed column is missing
+     */
+    RowMapper<T> bind(ResultSet rs) throws SQLException;
+}
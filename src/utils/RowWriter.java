@@ -0,0 +1,383 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Writes rows to a CSV or JSON file as they are produced.
+ * Values are escaped and encoded character by character into a fixed-size buffer that is written
+ * to a file channel whenever it fills, so no row is built as a string and memory use stays the
+ * same however many rows are written. CSV files start with a header row; JSON files hold an array
+ * with one object per row, keyed by column name.
+ */
+public class RowWriter implements Closeable {
+    /**
+     * File format
+     */
+    public enum Format {
+        /** Comma-separated values with a header row */
+        CSV,
+        /** Array of objects keyed by column name */
+        JSON
+    }
+
+    /**
+     * Characters held before encoding
+     */
+    private static final int CHAR_BUFFER = 8 * 1024;
+    /**
+     * Bytes held before writing to the file
+     */
+    private static final int BYTE_BUFFER = 64 * 1024;
+
+    /**
+     * File being written
+     */
+    private final FileChannel channel;
+    /**
+     * File format
+     */
+    private final Format format;
+    /**
+     * Column names, in row order
+     */
+    private final String[] columns;
+    /**
+     * Characters waiting to be encoded
+     */
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER);
+    /**
+     * Encoded bytes waiting to be written
+     */
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTE_BUFFER);
+    /**
+     * Encodes characters as UTF-8
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /**
+     * Digits of a number, written backwards
+     */
+    private final char[] digits = new char[20];
+    /**
+     * Zone local times are shown in
+     */
+    private final ZoneId zone = ZoneId.systemDefault();
+    /**
+     * Column of the next value in the current row
+     */
+    private int column;
+    /**
+     * Number of rows written
+     */
+    private long rows;
+
+    /**
+     * Creates or replaces a file and writes its header
+     * @param file File to write
+     * @param format CSV or JSON
+     * @param columns Column names, in row order
+     * @throws IOException Fails to open or write file
+     */
+    public RowWriter(Path file, Format format, String... columns) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.format = format;
+        this.columns = columns;
+        if (format == Format.CSV) {
+            for (String name : columns) {
+                text(name);
+            }
+            endRow();
+            rows = 0;
+        } else {
+            put('[');
+        }
+    }
+
+    /**
+     * Writes a text value as the next column
+     * @param value Text, or null for an empty value
+     * @return This writer
+     * @throws IOException Fails to write file
+     */
+    public RowWriter text(CharSequence value) throws IOException {
+        startValue();
+        if (value == null) {
+            if (format == Format.JSON) {
+                put("null");
+            }
+        } else if (format == Format.JSON) {
+            jsonString(value);
+        } else {
+            csvString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a whole number as the next column
+     * @param value Number
+     * @return This writer
+     * @throws IOException Fails to write file
+     */
+    public RowWriter number(long value) throws IOException {
+        startValue();
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value));
+            return this;
+        }
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (length > 0) {
+            put(digits[--length]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a local time as the next column, as yyyy-MM-dd HH:mm:ss
+     * @param epochMillis Time in epoch milliseconds, or Long.MIN_VALUE for an empty value
+     * @return This writer
+     * @throws IOException Fails to write file
+     */
+    public RowWriter dateTime(long epochMillis) throws IOException {
+        if (epochMillis == Long.MIN_VALUE) {
+            return text(null);
+        }
+        startValue();
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+        if (format == Format.JSON) {
+            put('"');
+        }
+        padded(time.getYear(), 4);
+        put('-');
+        padded(time.getMonthValue(), 2);
+        put('-');
+        padded(time.getDayOfMonth(), 2);
+        put(' ');
+        padded(time.getHour(), 2);
+        put(':');
+        padded(time.getMinute(), 2);
+        put(':');
+        padded(time.getSecond(), 2);
+        if (format == Format.JSON) {
+            put('"');
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current row
+     * @throws IOException Fails to write file
+     */
+    public void endRow() throws IOException {
+        if (format == Format.JSON) {
+            put('}');
+        } else {
+            put('\r');
+            put('\n');
+        }
+        column = 0;
+        rows++;
+    }
+
+    /**
+     * Gets number of rows written, not counting the CSV header
+     * @return Row count
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Ends the file, writes everything still buffered, and closes it
+     * @throws IOException Fails to write file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (format == Format.JSON) {
+                put(rows == 0 ? "]" : "\n]");
+            }
+            drain(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the separator before a value and, in JSON, the start of the row and the column key
+     * @throws IOException Fails to write file
+     */
+    private void startValue() throws IOException {
+        if (format == Format.JSON) {
+            if (column == 0) {
+                put(rows == 0 ? "\n{" : ",\n{");
+            } else {
+                put(',');
+            }
+            jsonString(column < columns.length ? columns[column] : "column" + (column + 1));
+            put(':');
+        } else if (column > 0) {
+            put(',');
+        }
+        column++;
+    }
+
+    /**
+     * Writes a CSV field, quoted only if it holds a comma, quote, or line break
+     * @param value Text
+     * @throws IOException Fails to write file
+     */
+    private void csvString(CharSequence value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            put(value);
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    /**
+     * Writes a quoted JSON string
+     * @param value Text
+     * @throws IOException Fails to write file
+     */
+    private void jsonString(CharSequence value) throws IOException {
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    put('\\');
+                    put(c);
+                    break;
+                case '\n':
+                    put("\\n");
+                    break;
+                case '\r':
+                    put("\\r");
+                    break;
+                case '\t':
+                    put("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        put("\\u00");
+                        put(Character.forDigit(c >> 4, 16));
+                        put(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        put(c);
+                    }
+            }
+        }
+        put('"');
+    }
+
+    /**
+     * Writes a non-negative number padded with leading zeros
+     * @param value Number
+     * @param width Least number of digits
+     * @throws IOException Fails to write file
+     */
+    private void padded(int value, int width) throws IOException {
+        int length = 0;
+        do {
+            digits[length++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (length < width) {
+            digits[length++] = '0';
+        }
+        while (length > 0) {
+            put(digits[--length]);
+        }
+    }
+
+    /**
+     * Buffers characters
+     * @param text Characters to write
+     * @throws IOException Fails to write file
+     */
+    private void put(CharSequence text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+    }
+
+    /**
+     * Buffers a character, encoding the buffer first if it is full
+     * @param c Character to write
+     * @throws IOException Fails to write file
+     */
+    private void put(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            drain(false);
+        }
+        chars.put(c);
+    }
+
+    /**
+     * Encodes buffered characters, writing the bytes to the file each time they fill their buffer
+     * @param end Whether no more characters follow, so everything must be written
+     * @throws IOException Fails to write file
+     */
+    private void drain(boolean end) throws IOException {
+        chars.flip();
+        // a surrogate pair split across buffers stays in chars until its second half arrives
+        while (encoder.encode(chars, bytes, end).isOverflow()) {
+            write();
+        }
+        chars.compact();
+        if (end) {
+            while (encoder.flush(bytes).isOverflow()) {
+                write();
+            }
+            write();
+        }
+    }
+
+    /**
+     * Writes encoded bytes to the file
+     * @throws IOException Fails to write file
+     */
+    private void write() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,418 @@
+package utils;
+
+import javafx.application.Platform;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes inserts, updates, and deletes to the database on a background thread,
+ * so screens can apply a change locally and move on without waiting for the database.
+ * <p>
+ * Writes are kept in the order they were made. A change to the same row as the
+ * newest queued write is folded into it: an update replaces a queued update, and a
+ * delete cancels a queued update or a queued insert that never reached the database.
+ * Runs of writes that use the same statement are sent together as one batch, and
+ * everything drained at once is written in one transaction.
+ * <p>
+ * A transaction that fails is retried a few times. If it keeps failing, the writes are
+ * tried one at a time, and each write that still fails has its rollback run on the
+ * JavaFX thread to undo the local change before the failure handler is told.
+ */
+public class WriteBehindQueue {
+    /**
+     * Logger for failed write attempts
+     */
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindQueue.class.getName());
+    /**
+     * Milliseconds to wait after the first queued write so later ones can join its batch
+     */
+    private static final long FLUSH_DELAY_MILLIS = 200;
+    /**
+     * Number of times a transaction is tried before writes are tried one at a time
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    /**
+     * Milliseconds to wait before the first retry, doubled for each retry after
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    /**
+     * Kind of change a write makes
+     */
+    private enum Kind { INSERT, UPDATE, DELETE }
+
+    /**
+     * Guards queued and in-flight writes
+     */
+    private final Object lock = new Object();
+    /**
+     * Writes waiting to be sent, oldest first
+     */
+    private final List<Write> queued = new ArrayList<>();
+    /**
+     * Writes being sent right now
+     */
+    private List<Write> inFlight = Collections.emptyList();
+    /**
+     * Told the descriptions of writes that failed for good, on the JavaFX thread
+     */
+    private volatile Consumer<List<String>> failureHandler = failed -> {};
+    /**
+     * Whether new writes are refused and the writer thread should stop once empty
+     */
+    private boolean closed;
+    /**
+     * Background thread that sends writes
+     */
+    private final Thread writer = new Thread(this::run, "write-behind");
+    /**
+     * Number of failed batches whose local changes have not been undone yet
+     */
+    private final AtomicInteger pendingRollbacks = new AtomicInteger();
+
+    /**
+     * Creates write-behind queue and starts its writer thread
+     */
+    public WriteBehindQueue() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Sets what happens after writes fail for good and their local changes have been undone
+     * @param failureHandler Told the descriptions of failed writes, on the JavaFX thread
+     */
+    public void setFailureHandler(Consumer<List<String>> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Queues an insert of a row that has already been added locally
+     * @param table Table name
+     * @param id ID of the row
+     * @param description Shown to the user if the write fails
+     * @param rollback Undoes the local change, run on the JavaFX thread if the write fails
+     * @param query Named insert statement
+     * @param params Values for the statement placeholders, in order
+     */
+    public void insert(String table, int id, String description, Runnable rollback, Query query, Object... params) {
+        submit(new Write(Kind.INSERT, table, id, description, rollback, query, params));
+    }
+
+    /**
+     * Queues an update of a row that has already been changed locally
+     * @param table Table name
+     * @param id ID of the row
+     * @param description Shown to the user if the write fails
+     * @param rollback Undoes the local change, run on the JavaFX thread if the write fails
+     * @param query Named update statement
+     * @param params Values for the statement placeholders, in order
+     */
+    public void update(String table, int id, String description, Runnable rollback, Query query, Object... params) {
+        submit(new Write(Kind.UPDATE, table, id, description, rollback, query, params));
+    }
+
+    /**
+     * Queues a delete of a row that has already been removed locally
+     * @param table Table name
+     * @param id ID of the row
+     * @param description Shown to the user if the write fails
+     * @param rollback Undoes the local change, run on the JavaFX thread if the write fails
+     * @param query Named delete statement
+     * @param params Values for the statement placeholders, in order
+     */
+    public void delete(String table, int id, String description, Runnable rollback, Query query, Object... params) {
+        submit(new Write(Kind.DELETE, table, id, description, rollback, query, params));
+    }
+
+    /**
+     * Gets IDs of rows in a table with writes that have not finished yet
+     * @param table Table name
+     * @return IDs of rows whose database state may not match the local state
+     */
+    public Set<Integer> getPendingIds(String table) {
+        Set<Integer> ids = new HashSet<>();
+        synchronized (lock) {
+            for (Write write : queued) {
+                if (write.table.equals(table)) {
+                    ids.add(write.id);
+                }
+            }
+            for (Write write : inFlight) {
+                if (write.table.equals(table)) {
+                    ids.add(write.id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Checks whether local data matches the database as far as this queue knows: nothing is queued or
+     * being sent, and no failed write is waiting to have its local change undone
+     * @return True if there are no unfinished writes
+     */
+    public boolean isIdle() {
+        synchronized (lock) {
+            return queued.isEmpty() && inFlight.isEmpty() && pendingRollbacks.get() == 0;
+        }
+    }
+
+    /**
+     * Sends all queued writes and stops the writer thread
+     * @param timeoutMillis Longest time to wait for queued writes to finish
+     * @return True if every write reached the database or had its local change undone, so local data matches the database
+     */
+    public boolean close(long timeoutMillis) {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !writer.isAlive() && pendingRollbacks.get() == 0;
+    }
+
+    /**
+     * Adds a write to the queue, folding it into the newest queued write when both change the same row
+     * @param write Write to add
+     */
+    private void submit(Write write) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            Write last = queued.isEmpty() ? null : queued.get(queued.size() - 1);
+            if (write.kind == Kind.UPDATE && last != null && last.sameRow(write) && last.kind == Kind.UPDATE) {
+                // newest values win; keep the first rollback so a failure restores the state before both edits
+                queued.set(queued.size() - 1, new Write(Kind.UPDATE, write.table, write.id, write.description, last.rollback, write.query, write.params));
+                return;
+            }
+            if (write.kind == Kind.DELETE) {
+                Runnable rollback = write.rollback;
+                while (last != null && last.sameRow(write) && last.kind == Kind.UPDATE) {
+                    // the update is superseded; if the delete fails, undo it and then the update
+                    Runnable deleteRollback = rollback;
+                    Runnable updateRollback = last.rollback;
+                    rollback = () -> {
+                        deleteRollback.run();
+                        updateRollback.run();
+                    };
+                    queued.remove(queued.size() - 1);
+                    last = queued.isEmpty() ? null : queued.get(queued.size() - 1);
+                }
+                if (last != null && last.sameRow(write) && last.kind == Kind.INSERT) {
+                    // the row never reached the database, so neither write is needed
+                    queued.remove(queued.size() - 1);
+                    return;
+                }
+                write = new Write(Kind.DELETE, write.table, write.id, write.description, rollback, write.query, write.params);
+            }
+            queued.add(write);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Writer thread loop: waits for writes, lets a batch gather, then sends it
+     */
+    private void run() {
+        while (true) {
+            synchronized (lock) {
+                while (queued.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queued.isEmpty()) {
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(FLUSH_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Write> writes;
+            synchronized (lock) {
+                writes = new ArrayList<>(queued);
+                queued.clear();
+                inFlight = writes;
+            }
+            List<Write> failed = send(writes);
+            // count pending rollbacks before the writes leave inFlight, so the queue never looks idle in between
+            if (!failed.isEmpty()) {
+                reportFailures(failed);
+            }
+            synchronized (lock) {
+                inFlight = Collections.emptyList();
+            }
+        }
+    }
+
+    /**
+     * Sends writes in one transaction, retrying with backoff, then one at a time if the transaction keeps failing
+     * @param writes Writes to send, oldest first
+     * @return Writes that could not be sent
+     */
+    private List<Write> send(List<Write> writes) {
+        long backoff = RETRY_BACKOFF_MILLIS;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try (Connection conn = DBConnect.getConn()) {
+                conn.setAutoCommit(false);
+                try {
+                    sendBatches(conn, writes);
+                    conn.commit();
+                    return Collections.emptyList();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Write attempt " + attempt + " of " + writes.size() + " changes failed", e);
+            }
+            if (attempt < MAX_ATTEMPTS) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff *= 2;
+            }
+        }
+        // find which writes fail by sending them one at a time
+        List<Write> failed = new ArrayList<>();
+        for (Write write : writes) {
+            try (Connection conn = DBConnect.getConn()) {
+                DBQuery.executeUpdate(conn, write.query, write.params);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Write failed: " + write.description, e);
+                failed.add(write);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Sends writes in order, grouping each run of writes with the same statement into one batch
+     * @param conn Connection borrowed from the connection pool
+     * @param writes Writes to send, oldest first
+     * @throws SQLException Fails to send a batch
+     */
+    private static void sendBatches(Connection conn, List<Write> writes) throws SQLException {
+        int i = 0;
+        while (i < writes.size()) {
+            Query query = writes.get(i).query;
+            PreparedStatement ps = DBQuery.prepare(conn, query);
+            try {
+                while (i < writes.size() && writes.get(i).query == query) {
+                    DBQuery.bind(ps, writes.get(i).params);
+                    ps.addBatch();
+                    i++;
+                }
+                ps.executeBatch();
+            } finally {
+                ps.clearBatch();
+            }
+        }
+    }
+
+    /**
+     * Undoes the local changes of failed writes, newest first, and tells the failure handler
+     * @param failed Writes that could not be sent
+     */
+    private void reportFailures(List<Write> failed) {
+        List<String> descriptions = new ArrayList<>();
+        for (Write write : failed) {
+            descriptions.add(write.description);
+        }
+        pendingRollbacks.incrementAndGet();
+        Platform.runLater(() -> {
+            for (int i = failed.size() - 1; i >= 0; i--) {
+                failed.get(i).rollback.run();
+            }
+            pendingRollbacks.decrementAndGet();
+            failureHandler.accept(descriptions);
+        });
+    }
+
+    /**
+     * One queued insert, update, or delete of a row
+     */
+    private static class Write {
+        /**
+         * Kind of change
+         */
+        private final Kind kind;
+        /**
+         * Table name
+         */
+        private final String table;
+        /**
+         * ID of the row
+         */
+        private final int id;
+        /**
+         * Shown to the user if the write fails
+         */
+        private final String description;
+        /**
+         * Undoes the local change
+         */
+        private final Runnable rollback;
+        /**
+         * Named statement
+         */
+        private final Query query;
+        /**
+         * Values for the statement placeholders, in order
+         */
+        private final Object[] params;
+
+        /**
+         * Creates write
+         * @param kind Kind of change
+         * @param table Table name
+         * @param id ID of the row
+         * @param description Shown to the user if the write fails
+         * @param rollback Undoes the local change
+         * @param query Named statement
+         * @param params Values for the statement placeholders, in order
+         */
+        Write(Kind kind, String table, int id, String description, Runnable rollback, Query query, Object[] params) {
+            this.kind = kind;
+            this.table = table;
+            this.id = id;
+            this.description = description;
+            this.rollback = rollback;
+            this.query = query;
+            this.params = params;
+        }
+
+        /**
+         * Checks whether another write changes the same row
+         * @param other Other write
+         * @return True if both writes change the same row of the same table
+         */
+        boolean sameRow(Write other) {
+            return id == other.id && table.equals(other.table);
+        }
+    }
+}